@@ -0,0 +1,41 @@
+package com.playercommunication;
+
+import java.net.ServerSocket;
+
+import com.playercommunication.channel.NetworkChannel;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Training run for the AppCDS archive built by the appcds Maven profile.
+ * Plays one conversation over TCP (the MultiProcessCommunication path: config, Player, NetworkChannel with its
+ * event loop and timer) and one in-process conversation (SingleProcessCommunication), so the classes both
+ * entry points load at startup end up in the archive.
+ */
+public class AppCdsTraining {
+
+	public static void main(String[] args) throws Exception {
+		int port;
+		try (ServerSocket probe = new ServerSocket(0)) {
+			port = probe.getLocalPort(); // free port, the configured one may be taken by a running player
+		}
+
+		Thread serverThread = new Thread(() -> {
+			try {
+				NetworkChannel serverChannel = new NetworkChannel("Player2", port);
+				new Player("Player2", serverChannel, false, null).communicate();
+				serverChannel.shutdown();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}, "Player2-Thread");
+		serverThread.start();
+
+		NetworkChannel clientChannel = new NetworkChannel("Player1", "localhost", port);
+		new Player("Player1", clientChannel, true, "Chit_Chat").communicate();
+		clientChannel.shutdown();
+		serverThread.join();
+
+		SingleProcessCommunication.main(new String[0]);
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.playercommunication;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.playercommunication.channel.ChannelPipeline;
+import com.playercommunication.channel.MessageChannel;
+import com.playercommunication.config.ConfigLoader;
+import com.playercommunication.mesh.MeshNode;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Player communication across N processes forming a mesh from the static mesh.nodes list.
+ * Every node runs the same conversations table: nodes x mesh.pairs conversations, "Initiator-c" talking to
+ * "Responder-c". Each node hosts the players whose id hashes to it and steps them on one {@link PlayerEventLoop}
+ * per core, so conversations spread over every node and core, and each node pair shares one connection.
+ * Start one process per node with its index, in any order.
+ */
+public class MeshCommunication {
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: java MeshCommunication <nodeIndex> [initialMessage]");
+			System.exit(1);
+		}
+		int nodeIndex = Integer.parseInt(args[0]);
+		String initialMessage = args.length > 1 && !args[1].isEmpty() ? args[1] : "Chit_Chat";
+
+		MeshNode node = new MeshNode(MeshNode.parseNodes(ConfigLoader.getMeshNodes()), nodeIndex);
+		int conversations = node.getNodeCount() * ConfigLoader.getMeshPairs();
+		System.out.println("=== Mesh Communication ===");
+		System.out.printf("Node %d of %d, %d conversations in the mesh%n", nodeIndex, node.getNodeCount(), conversations);
+
+		try {
+			if (runNode(node, conversations, initialMessage)) {
+				System.out.println("\n=== Completed ===");
+			}
+		} catch (IOException ioExp) {
+			ioExp.printStackTrace();
+			System.exit(1);
+		}
+		System.out.println("=== Communication Finished ===");
+	}
+
+	/**
+	 * Hosts this node's share of the conversations until every local player finished, then leaves the mesh.
+	 * @return true if all local conversations completed in time
+	 */
+	public static boolean runNode(MeshNode node, int conversations, String initialMessage) throws IOException {
+		List<Player> players = new ArrayList<>();
+		for (int c = 0; c < conversations; c++) {
+			String initiatorId = "Initiator-" + c;
+			String responderId = "Responder-" + c;
+			if (node.isLocal(initiatorId)) {
+				MessageChannel channel = ChannelPipeline.assemble(node.channelFor(initiatorId, responderId), initiatorId);
+				players.add(new Player(initiatorId, channel, true, initialMessage));
+			}
+			if (node.isLocal(responderId)) {
+				MessageChannel channel = ChannelPipeline.assemble(node.channelFor(responderId, initiatorId), responderId);
+				players.add(new Player(responderId, channel, false, null));
+			}
+		}
+
+		long startNanos = System.nanoTime();
+		node.start();
+		int loopCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), players.size()));
+		List<PlayerEventLoop> loops = new ArrayList<>();
+		for (int i = 0; i < loopCount; i++) {
+			loops.add(new PlayerEventLoop("mesh-player-loop-" + i));
+		}
+		boolean completed = false;
+		try {
+			CompletableFuture<?>[] done = new CompletableFuture<?>[players.size()];
+			for (int i = 0; i < players.size(); i++) {
+				Player player = players.get(i);
+				// End of stream releases the peer once this player is done, wherever the peer lives
+				done[i] = loops.get(i % loopCount).register(player)
+						.whenComplete((result, failure) -> player.getChannel().shutdown());
+			}
+			CompletableFuture.allOf(done).get(1, TimeUnit.MINUTES);
+			completed = true;
+			System.out.printf("%d local players finished in %d ms (local deliveries: %d, remote sends: %d)%n",
+					players.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+					node.getLocalDeliveries(), node.getRemoteSends());
+		} catch (Exception conversationExp) {
+			conversationExp.printStackTrace();
+		} finally {
+			for (PlayerEventLoop loop : loops) {
+				loop.close();
+			}
+			node.close();
+		}
+		return completed;
+	}
+
+}
@@ -1,5 +1,6 @@
 package com.playercommunication;
 
+import com.playercommunication.channel.ChannelPipeline;
 import com.playercommunication.channel.MessageChannel;
 import com.playercommunication.channel.NetworkChannel;
 import com.playercommunication.config.ConfigLoader;
@@ -40,15 +41,20 @@ public class MultiProcessCommunication {
 
 		try{
 			// Create network channel (client for initiator, server for responder)
-			MessageChannel channel = isInitiator
+			MessageChannel channel = ChannelPipeline.assemble(isInitiator
 					? new NetworkChannel(playerId,host, port)
-					: new NetworkChannel(playerId, port);
+					: new NetworkChannel(playerId, port), playerId);
 			
 			// Create Player instance
 			Player player = new Player(playerId, channel, isInitiator, initialMessage);
 
 			// Start communication
 			player.communicate();
+			if (player.getFirstMessageMillis() > 0) {
+				// Startup cost the AppCDS launch profile is meant to cut, see README
+				System.out.printf("[%s] Time to first message: %d ms after JVM start%n", playerId,
+						player.getFirstMessageMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+			}
 
 			// Cleanup resources
 			channel.shutdown();
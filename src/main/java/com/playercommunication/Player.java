@@ -1,7 +1,11 @@
 package com.playercommunication;
 
+import java.nio.charset.StandardCharsets;
+
 import com.playercommunication.channel.MessageChannel;
 import com.playercommunication.config.ConfigLoader;
+import com.playercommunication.message.MessageCodec;
+import com.playercommunication.message.MessageFlyweight;
 
 /**
  * @author Tharmaraj Marimuthu
@@ -10,6 +14,11 @@ import com.playercommunication.config.ConfigLoader;
  * Initiator starts the communication by sending the first message.
  * Responder waits to receive messages and responds accordingly.
  * Message format : Actual message + Message count
+ * With message.format=binary the same text travels as the payload of a {@link MessageFlyweight} whose header
+ * carries sender id, sequence (the sent count), timestamp and flags; replies are assembled in place in the codec's
+ * buffer from the received payload and the count digits, without building strings.
+ * The exchange rules live in a non-blocking state machine ({@link #start()}, {@link #onMessage(String)}) so the same
+ * player can run on its own thread through {@link #communicate()} or be stepped by a {@link PlayerEventLoop}.
  */
 
 public class Player implements Runnable {
@@ -18,10 +27,14 @@ public class Player implements Runnable {
     private final MessageChannel channel;
     private final boolean isInitiator;
     private final String initialMessage;
+    private final MessageCodec codec; // null in text format
+    private final int senderId;
 
     private static final int MAX_MESSAGES = ConfigLoader.getMaxMessageCount();
     private int sentCount = 0;
     private int receivedCount = 0;
+    private boolean completed;
+    private long firstMessageMillis; // wall clock of the first message sent or received by communicate()
 
 
     /**
@@ -31,10 +44,20 @@ public class Player implements Runnable {
      * @param initialMessage The initial message to start the communication with
      */
     public Player(String playerId, MessageChannel channel, boolean isInitiator, String initialMessage) {
+        this(playerId, channel, isInitiator, initialMessage, "binary".equalsIgnoreCase(ConfigLoader.getMessageFormat()));
+    }
+
+    /**
+     * @param binaryFormat True to exchange binary messages with a header, both players must agree
+     */
+    public Player(String playerId, MessageChannel channel, boolean isInitiator, String initialMessage,
+            boolean binaryFormat) {
         this.playerId = playerId;
         this.channel = channel;
         this.isInitiator = isInitiator;
         this.initialMessage = initialMessage;
+        this.codec = binaryFormat ? new MessageCodec() : null;
+        this.senderId = playerId.hashCode();
     }
 
     /**
@@ -56,31 +79,115 @@ public class Player implements Runnable {
         return playerId;
     }
 
+    MessageChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * First step of the state machine.
+     * @return the initial message for the initiator, null for a responder
+     */
+    public String start() {
+        if (!isInitiator) return null;
+        sentCount++;
+        if (codec == null) return initialMessage;
+
+        byte[] payload = initialMessage == null ? new byte[0] : initialMessage.getBytes(StandardCharsets.UTF_8);
+        codec.write(senderId, sentCount, MessageFlyweight.FLAG_FIRST, payload.length)
+                .appendPayload(payload, 0, payload.length);
+        return codec.toWire();
+    }
+
+    /**
+     * Consumes one message from the peer without blocking.
+     * @param receivedMessage Message from the peer
+     * @return the reply to send, or null if the player completed without replying
+     */
+    public String onMessage(String receivedMessage) {
+        if (completed) return null;
+
+        receivedCount++;
+        if (isInitiator && receivedCount >= MAX_MESSAGES) {
+            completed = true;
+            return null;
+        }
+        sentCount++;
+        completed = sentCount > MAX_MESSAGES || receivedCount > MAX_MESSAGES; // this reply is the last one
+        if (codec == null) return receivedMessage + sentCount;
+
+        MessageFlyweight received = codec.read(receivedMessage);
+        codec.write(senderId, sentCount, completed ? MessageFlyweight.FLAG_LAST : 0, received.getPayloadLength() + 20)
+                .appendPayload(received)
+                .appendPayloadDigits(sentCount);
+        return codec.toWire();
+    }
+
+    // Readable form for the console, the payload and header of a binary message
+    private String describe(String message) {
+        if (codec == null) return message;
+
+        MessageFlyweight decoded = codec.read(message); // the reply is already on its way, the buffer is free
+        return String.format("%s [sender=%d, sequence=%d, flags=%d]", MessageCodec.payloadText(decoded),
+                decoded.getSenderId(), decoded.getSequence(), decoded.getFlags());
+    }
+
+    /**
+     * @return true once the player neither expects nor sends further messages
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    public int getReceivedCount() {
+        return receivedCount;
+    }
+
+    /**
+     * @return epoch millis when communicate() first sent or received a message, 0 if it never did
+     */
+    public long getFirstMessageMillis() {
+        return firstMessageMillis;
+    }
+
+    /**
+     * Blocking driver of the state machine, owns the calling thread until the conversation ends.
+     */
     public void communicate(){
 
         try {
             System.out.println(String.format("[%s] Started. (Initiator=%s)", playerId, isInitiator));
 
             // Initiator sends the first message
-            if (isInitiator) {
-                sentCount++;
-                channel.sendMessage(initialMessage);
-                System.out.println(String.format("[%s] Sent: %s (Sent Count: %d)", playerId, initialMessage, sentCount));
+            String firstMessage = start();
+            if (firstMessage != null) {
+                channel.sendMessage(firstMessage);
+                firstMessageMillis = System.currentTimeMillis();
+                System.out.println(String.format("[%s] Sent: %s (Sent Count: %d)", playerId, describe(firstMessage), sentCount));
             }
 
             //Message exchange loop
-            while ((sentCount <= MAX_MESSAGES) && ( receivedCount <= MAX_MESSAGES ) ) {
+            while (!completed) {
                 // Receive message
                 String receivedMessage = channel.receiveMessage();
-                receivedCount++;
-                System.out.println(String.format("[%s] Received: %s (Received Count: %d)", playerId, receivedMessage, receivedCount));
+                if (receivedMessage == null) {
+                    System.out.println(String.format("[%s] End of stream", playerId)); // peer shut down
+                    break;
+                }
+                if (firstMessageMillis == 0) {
+                    firstMessageMillis = System.currentTimeMillis();
+                }
+                String reply = onMessage(receivedMessage);
+                System.out.println(String.format("[%s] Received: %s (Received Count: %d)", playerId, describe(receivedMessage), receivedCount));
 
-                if (receivedMessage == null || (isInitiator && receivedCount >= MAX_MESSAGES)) {
+                if (reply == null) {
                     break;
                 }
-                sentCount++;
-                channel.sendMessage(receivedMessage + sentCount);
-                System.out.println(String.format("[%s] Sent: %s (Sent Count: %d)", playerId, receivedMessage + sentCount, sentCount));
+                channel.sendMessage(reply);
+                System.out.println(String.format("[%s] Sent: %s (Sent Count: %d)", playerId, describe(reply), sentCount));
                 Thread.sleep(100);
             }
 
@@ -0,0 +1,143 @@
+package com.playercommunication;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+import com.playercommunication.channel.MessageChannel;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * One thread stepping many players through their non-blocking state machine.
+ * A player is only run when its channel hands over a message (its receiveAsync completes), so a waiting
+ * player costs one pending future instead of a parked thread. Replies leave with sendAsync, which keeps
+ * per-channel order, so the loop never blocks on a full queue or socket.
+ */
+public final class PlayerEventLoop implements Executor, AutoCloseable {
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    public PlayerEventLoop(String name) {
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Starts driving the player over its channel on this loop.
+     * @return Future completed once the player finished or its channel reached end of stream,
+     *         failed if a send or receive failed
+     */
+    public CompletableFuture<Void> register(Player player) {
+        Driver driver = new Driver(player, player.getChannel());
+        execute(driver::start);
+        return driver.done;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            Runnable task = tasks.poll();
+            if (task != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException taskExp) {
+                    taskExp.printStackTrace(); // keep the other players going
+                }
+                continue;
+            }
+            parked = true;
+            if (tasks.isEmpty() && running) {
+                LockSupport.park(this);
+            }
+            parked = false;
+        }
+    }
+
+    /**
+     * Stops the loop thread; players still waiting are abandoned.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() == thread) return;
+        try {
+            thread.join();
+        } catch (InterruptedException interrupExp) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Loop thread only, except for the futures completed by the channel
+    private final class Driver implements BiConsumer<String, Throwable> {
+
+        private final Player player;
+        private final MessageChannel channel;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final BiConsumer<Void, Throwable> onSent = (ignored, sendExp) -> {
+            if (sendExp != null) done.completeExceptionally(sendExp);
+        };
+
+        private Driver(Player player, MessageChannel channel) {
+            this.player = player;
+            this.channel = channel;
+        }
+
+        private void start() {
+            String firstMessage = player.start();
+            if (firstMessage != null) {
+                send(firstMessage);
+            }
+            awaitNext();
+        }
+
+        private void awaitNext() {
+            if (done.isDone()) return;
+            channel.receiveAsync().whenCompleteAsync(this, PlayerEventLoop.this);
+        }
+
+        // Readiness callback, the channel delivered a message
+        @Override
+        public void accept(String message, Throwable receiveExp) {
+            if (receiveExp != null) {
+                done.completeExceptionally(receiveExp);
+                return;
+            }
+            if (message == null) {
+                done.complete(null); // peer shut down
+                return;
+            }
+            String reply = player.onMessage(message);
+            if (reply != null) {
+                send(reply);
+            }
+            if (player.isCompleted()) {
+                done.complete(null);
+            } else {
+                awaitNext();
+            }
+        }
+
+        private void send(String message) {
+            CompletableFuture<Void> sent = channel.sendAsync(message);
+            if (!sent.isDone() || sent.isCompletedExceptionally()) {
+                sent.whenComplete(onSent);
+            }
+        }
+    }
+
+}
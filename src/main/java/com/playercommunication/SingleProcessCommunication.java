@@ -2,10 +2,16 @@ package com.playercommunication;
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+import com.playercommunication.channel.BroadcastChannel;
+import com.playercommunication.channel.BroadcastRing;
+import com.playercommunication.channel.ChannelPipeline;
 import com.playercommunication.channel.MessageChannel;
 import com.playercommunication.channel.SameProcessChannel;
 import com.playercommunication.config.ConfigLoader;
+import com.playercommunication.shard.ShardedRouter;
 
 /**
  * @author Tharmaraj Marimuthu
@@ -14,6 +20,9 @@ import com.playercommunication.config.ConfigLoader;
  * Achieve low-latency communication, bounded buffers.
  * Each player runs in its own thread, sending and receiving messages via shared queues.
  * BlockingQueue ensures thread-safe communication and Blocking operations.
+ * With broadcast.responders > 0 one initiator talks to many responders through a BroadcastRing instead.
+ * With shard.pairs > 0 many independent pairs share a few shard threads through a ShardedRouter.
+ * With event.loop.pairs > 0 many pairs over SameProcessChannels are stepped by a single PlayerEventLoop thread.
  */
 public class SingleProcessCommunication {
 
@@ -27,21 +36,42 @@ public class SingleProcessCommunication {
 			initialMessage = "Chit_Chat"; // Default message
 		}
 		int queueCapacity = ConfigLoader.getQueueCapacity();
+		int spillCapacityBytes = ConfigLoader.getQueueSpillCapacityBytes();
 
 		System.out.println("=== Single Process Communication ===");
 		System.out.println("Initial Message: " + initialMessage);
 		System.out.println("Queue Capacity: " + queueCapacity);
 
+		int broadcastResponders = ConfigLoader.getBroadcastResponders();
+		if (broadcastResponders > 0) {
+			runBroadcast(initialMessage, broadcastResponders);
+			return;
+		}
+		int shardPairs = ConfigLoader.getShardPairs();
+		if (shardPairs > 0) {
+			runSharded(initialMessage, shardPairs);
+			return;
+		}
+		int eventLoopPairs = ConfigLoader.getEventLoopPairs();
+		if (eventLoopPairs > 0) {
+			runOnEventLoop(initialMessage, eventLoopPairs, queueCapacity, spillCapacityBytes);
+			return;
+		}
+
 		BlockingQueue<String> initiatorQueue = new ArrayBlockingQueue<>(queueCapacity);
 		BlockingQueue<String> responderQueue = new ArrayBlockingQueue<>(queueCapacity);
 
 		// Create channels for each player using the shared queues
-		MessageChannel initiatorChannel = new SameProcessChannel(initiatorQueue, responderQueue);
-		MessageChannel responderChannel = new SameProcessChannel(responderQueue, initiatorQueue);
+		SameProcessChannel initiatorChannel = new SameProcessChannel(initiatorQueue, responderQueue, spillCapacityBytes);
+		SameProcessChannel responderChannel = new SameProcessChannel(responderQueue, initiatorQueue, spillCapacityBytes);
+		SameProcessChannel.connect(initiatorChannel, responderChannel);
+		// Interceptor stages from application.properties, the channels themselves when none is enabled
+		MessageChannel initiatorLink = ChannelPipeline.assemble(initiatorChannel, "Player1");
+		MessageChannel responderLink = ChannelPipeline.assemble(responderChannel, "Player2");
 
 		// Create Player instances for each player with their respective channels
-		Player initiator = new Player("Player1", initiatorChannel, true, initialMessage);
-		Player responder = new Player("Player2", responderChannel, false, null);
+		Player initiator = new Player("Player1", initiatorLink, true, initialMessage);
+		Player responder = new Player("Player2", responderLink, false, null);
 
 		// Create and start the initiator and responder threads
 		// High priority thread for low latency
@@ -51,19 +81,134 @@ public class SingleProcessCommunication {
 		initiatorThread.start();
 		responderThread.start();
 
-		// Current thread sleeps to ensure Player2 thread sets up for shutdown
 		try {
 			initiatorThread.join();
-			Thread.sleep(100);
-			responderThread.join(1000);
+			// End of stream releases Player2, which is waiting for the next message
+			initiatorLink.shutdown();
+			responderThread.join();
+			responderLink.shutdown();
+
+			System.out.println("\n=== Completed ===");
+		} catch (InterruptedException interrupExp) {
+			interrupExp.printStackTrace();
+		}
+
+		System.out.println("=== Communication Finished ===");
+	}
 
+	/**
+	 * One initiator publishes every message once into a pre-allocated ring, all responders read it
+	 * through their own cursor and reply on a shared queue.
+	 * @param initialMessage First message of the conversation
+	 * @param responderCount Number of responder players
+	 */
+	private static void runBroadcast(String initialMessage, int responderCount) {
+		int ringCapacity = ConfigLoader.getBroadcastRingCapacity();
+		System.out.println("Broadcast Responders: " + responderCount + " (Ring Capacity: " + ringCapacity + ")");
+
+		BroadcastRing ring = new BroadcastRing(ringCapacity);
+		BlockingQueue<String> replyQueue = new ArrayBlockingQueue<>(responderCount);
+
+		// Subscribers first, so their cursors see the initial message
+		Thread[] responderThreads = new Thread[responderCount];
+		for (int i = 0; i < responderCount; i++) {
+			String responderId = "Player" + (i + 2);
+			Player responder = new Player(responderId, BroadcastChannel.subscriber(ring, replyQueue), false, null);
+			responderThreads[i] = new Thread(responder, responderId + "-Thread");
+		}
+		BroadcastChannel publisherChannel = BroadcastChannel.publisher(ring, replyQueue);
+		Thread initiatorThread = new Thread(new Player("Player1", publisherChannel, true, initialMessage), "Player1-Thread");
+
+		for (Thread responderThread : responderThreads) {
+			responderThread.start();
+		}
+		initiatorThread.start();
+
+		try {
+			initiatorThread.join();
+			// Closing the ring releases responders waiting for the next message
+			publisherChannel.shutdown();
+			for (Thread responderThread : responderThreads) {
+				responderThread.join();
+			}
 			System.out.println("\n=== Completed ===");
 		} catch (InterruptedException interrupExp) {
 			interrupExp.printStackTrace();
 		}
 
 		System.out.println("=== Communication Finished ===");
-		System.exit(0);
+	}
+
+	/**
+	 * Hosts many pairs on a fixed set of shard threads instead of two threads per pair.
+	 * @param initialMessage First message of every conversation
+	 * @param pairCount Number of initiator/responder pairs
+	 */
+	private static void runSharded(String initialMessage, int pairCount) {
+		ShardedRouter router = new ShardedRouter(ConfigLoader.getShardCount(), ConfigLoader.getShardRingCapacity());
+		System.out.println("Sharded Pairs: " + pairCount + " (Shards: " + router.getShardCount() + ")");
+
+		for (int i = 0; i < pairCount; i++) {
+			// Players without a channel, the router feeds their state machine
+			Player initiator = new Player("Player1-" + i, null, true, initialMessage);
+			Player responder = new Player("Player2-" + i, null, false, null);
+			router.addConversation(initiator.getId(), initiator::onMessage, responder.getId(), responder::onMessage,
+					initiator.start());
+		}
+
+		long startNanos = System.nanoTime();
+		router.start();
+		try {
+			if (router.awaitCompletion(1, TimeUnit.MINUTES)) {
+				System.out.println(String.format("%d conversations completed in %d ms (local handoffs: %d, cross-shard: %d)",
+						pairCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+						router.getLocalHandoffs(), router.getCrossShardMessages()));
+				System.out.println("\n=== Completed ===");
+			} else {
+				System.out.println("Conversations did not complete in time");
+			}
+		} catch (InterruptedException interrupExp) {
+			interrupExp.printStackTrace();
+		} finally {
+			router.close();
+		}
+
+		System.out.println("=== Communication Finished ===");
+	}
+
+	/**
+	 * Every player of every pair runs on one thread, stepped only when its channel delivers a message.
+	 * @param initialMessage First message of every conversation
+	 * @param pairCount Number of initiator/responder pairs
+	 */
+	private static void runOnEventLoop(String initialMessage, int pairCount, int queueCapacity, int spillCapacityBytes) {
+		System.out.println("Event Loop Pairs: " + pairCount);
+
+		CompletableFuture<?>[] conversations = new CompletableFuture<?>[2 * pairCount];
+		long startNanos = System.nanoTime();
+		try (PlayerEventLoop eventLoop = new PlayerEventLoop("player-event-loop")) {
+			for (int i = 0; i < pairCount; i++) {
+				BlockingQueue<String> initiatorQueue = new ArrayBlockingQueue<>(queueCapacity);
+				BlockingQueue<String> responderQueue = new ArrayBlockingQueue<>(queueCapacity);
+				SameProcessChannel initiatorChannel = new SameProcessChannel(initiatorQueue, responderQueue, spillCapacityBytes);
+				SameProcessChannel responderChannel = new SameProcessChannel(responderQueue, initiatorQueue, spillCapacityBytes);
+				SameProcessChannel.connect(initiatorChannel, responderChannel);
+
+				// End of stream releases the responder once the initiator is done
+				conversations[2 * i] = eventLoop.register(new Player("Player1-" + i, initiatorChannel, true, initialMessage))
+						.whenComplete((result, failure) -> initiatorChannel.shutdown());
+				conversations[2 * i + 1] = eventLoop.register(new Player("Player2-" + i, responderChannel, false, null))
+						.whenComplete((result, failure) -> responderChannel.shutdown());
+			}
+			CompletableFuture.allOf(conversations).join();
+			System.out.println(String.format("%d conversations completed in %d ms", pairCount,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+			System.out.println("\n=== Completed ===");
+		} catch (RuntimeException conversationExp) {
+			conversationExp.printStackTrace();
+		}
+
+		System.out.println("=== Communication Finished ===");
 	}
 
 }
@@ -0,0 +1,107 @@
+package com.playercommunication.channel;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * BroadcastChannel for one-to-many conversations within the same JVM process.
+ * The publisher side writes every message once into a {@link BroadcastRing}; each subscriber side
+ * reads it through its own cursor. Replies travel back over a shared queue and the publisher
+ * receives one reply per subscriber per message, so an initiator Player sees the same
+ * send/receive rhythm as in a one-to-one conversation.
+ * Blocking calls only: neither the ring cursors nor the reply queue can hand a message back once a receiver
+ * gave up, so sendAsync and receiveAsync keep the failing {@link MessageChannel} defaults.
+ */
+public class BroadcastChannel implements MessageChannel {
+
+    private static final int SEND_TIMEOUT_MS = 1000; // 1 second timeout for sending replies
+
+    private final BroadcastRing ring;
+    private final BroadcastRing.Cursor cursor; // null on the publisher side
+    private final BlockingQueue<String> replyQueue;
+
+    private BroadcastChannel(BroadcastRing ring, BroadcastRing.Cursor cursor, BlockingQueue<String> replyQueue) {
+        this.ring = ring;
+        this.cursor = cursor;
+        this.replyQueue = replyQueue;
+    }
+
+    /**
+     * @param ring Ring the publisher writes to
+     * @param replyQueue Queue all subscribers reply on
+     * @return Channel for the single initiator
+     */
+    public static BroadcastChannel publisher(BroadcastRing ring, BlockingQueue<String> replyQueue) {
+        return new BroadcastChannel(ring, null, replyQueue);
+    }
+
+    /**
+     * Subscribers must be created before the publisher starts, otherwise they miss earlier messages.
+     * @param ring Ring to read from
+     * @param replyQueue Queue to reply on
+     * @return Channel for one responder
+     */
+    public static BroadcastChannel subscriber(BroadcastRing ring, BlockingQueue<String> replyQueue) {
+        return new BroadcastChannel(ring, ring.newCursor(), replyQueue);
+    }
+
+    private boolean isPublisher() {
+        return cursor == null;
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        if (message == null) return;
+
+        if (isPublisher()) {
+            ring.publish(message);
+            return;
+        }
+        try {
+            boolean sent = replyQueue.offer(message, SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (!sent) {
+                System.err.println("Failed to send reply within timeout: " + message);
+            }
+        } catch (InterruptedException interrupExp) {
+            interrupExp.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Subscriber: next broadcast message. Publisher: waits for a reply from every subscriber
+     * and returns the last one.
+     */
+    @Override
+    public String receiveMessage() {
+        try {
+            if (!isPublisher()) {
+                return cursor.take();
+            }
+            String reply = null;
+            for (int expected = ring.getCursorCount(); expected > 0; expected--) {
+                reply = replyQueue.take();
+            }
+            return reply;
+        } catch (InterruptedException interrupExp) {
+            interrupExp.printStackTrace();
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Publisher shutdown closes the ring so subscribers stop once drained;
+     * subscriber shutdown stops gating the publisher.
+     */
+    @Override
+    public void shutdown() {
+        if (isPublisher()) {
+            ring.close();
+        } else {
+            cursor.close();
+        }
+    }
+
+}
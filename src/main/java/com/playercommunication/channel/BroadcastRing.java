@@ -0,0 +1,182 @@
+package com.playercommunication.channel;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Single-writer, multi-reader ring buffer in the Disruptor style.
+ * The publisher writes each message once into a pre-allocated slot; every reader owns a cursor and
+ * walks the same slots independently, so fan-out to N readers costs one write instead of N queue inserts.
+ * The slowest cursor gates the publisher: a slot is reused only after every reader has passed it.
+ */
+public class BroadcastRing {
+
+    private static final int SPIN_TRIES = 200; // busy polls before a reader blocks
+    private static final long MAX_PUBLISHER_PARK_NANOS = 100_000;
+
+    private final String[] entries;
+    private final int mask;
+
+    private volatile long publishedSequence = -1;
+    private long cachedGatingSequence = -1; // publisher thread only
+    private volatile Cursor[] cursors = new Cursor[0];
+    private volatile boolean closed;
+
+    // Blocking wait for readers that ran out of spins, signalled only while someone is waiting
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition messagePublished = waitLock.newCondition();
+    private final AtomicInteger blockedReaders = new AtomicInteger();
+
+    /**
+     * @param capacity Number of slots, a power of two
+     */
+    public BroadcastRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.entries = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds a reader starting after the last published message.
+     * @return Cursor owned by a single reader thread
+     */
+    public synchronized Cursor newCursor() {
+        Cursor cursor = new Cursor(publishedSequence);
+        Cursor[] current = cursors;
+        Cursor[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = cursor;
+        cursors = updated;
+        return cursor;
+    }
+
+    private synchronized void removeCursor(Cursor cursor) {
+        Cursor[] current = cursors;
+        Cursor[] updated = new Cursor[current.length];
+        int count = 0;
+        for (Cursor existing : current) {
+            if (existing != cursor) updated[count++] = existing;
+        }
+        cursors = Arrays.copyOf(updated, count);
+    }
+
+    public int getCursorCount() {
+        return cursors.length;
+    }
+
+    /**
+     * Publishes a message to every cursor. Must only be called from the single publisher thread.
+     * Waits while the slowest reader is a full ring behind.
+     * @return false if the ring was closed while waiting for space
+     */
+    public boolean publish(String message) {
+        long next = publishedSequence + 1;
+        long wrapPoint = next - entries.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long gatingSequence;
+            long parkNanos = 1_000;
+            while (wrapPoint > (gatingSequence = minimumSequence(next - 1))) {
+                if (closed) return false;
+                LockSupport.parkNanos(parkNanos);
+                parkNanos = Math.min(parkNanos * 2, MAX_PUBLISHER_PARK_NANOS);
+            }
+            cachedGatingSequence = gatingSequence;
+        }
+        entries[(int) next & mask] = message;
+        publishedSequence = next; // volatile write makes the slot visible to readers
+
+        if (blockedReaders.get() > 0) {
+            signalReaders();
+        }
+        return true;
+    }
+
+    /**
+     * Wakes every blocked reader; they return null once they have drained the ring.
+     */
+    public void close() {
+        closed = true;
+        signalReaders();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private long minimumSequence(long defaultSequence) {
+        long minimum = defaultSequence;
+        for (Cursor cursor : cursors) {
+            minimum = Math.min(minimum, cursor.sequence);
+        }
+        return minimum;
+    }
+
+    private void signalReaders() {
+        waitLock.lock();
+        try {
+            messagePublished.signalAll();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    /**
+     * Independent read position of one reader.
+     */
+    public final class Cursor {
+
+        private volatile long sequence; // last consumed
+
+        private Cursor(long sequence) {
+            this.sequence = sequence;
+        }
+
+        /**
+         * @return next message, or null if nothing new has been published
+         */
+        public String poll() {
+            long next = sequence + 1;
+            if (next > publishedSequence) return null;
+            String message = entries[(int) next & mask];
+            sequence = next; // releases the slot to the publisher
+            return message;
+        }
+
+        /**
+         * Spins briefly, then blocks until the next message is published.
+         * @return next message, or null once the ring is closed and drained
+         */
+        public String take() throws InterruptedException {
+            String message;
+            for (int i = 0; i < SPIN_TRIES; i++) {
+                if ((message = poll()) != null) return message;
+                Thread.onSpinWait();
+            }
+            blockedReaders.incrementAndGet();
+            waitLock.lock();
+            try {
+                while ((message = poll()) == null) {
+                    if (closed) return null;
+                    messagePublished.await();
+                }
+                return message;
+            } finally {
+                waitLock.unlock();
+                blockedReaders.decrementAndGet();
+            }
+        }
+
+        /**
+         * Stops gating the publisher; a departed reader must not stall the others.
+         */
+        public void close() {
+            removeCursor(this);
+        }
+    }
+
+}
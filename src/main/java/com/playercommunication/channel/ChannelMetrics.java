@@ -0,0 +1,134 @@
+package com.playercommunication.channel;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Counters describing how a channel moves messages.
+ * Flushes count write syscalls carrying messages, so messagesSent / flushes shows how well bursts are amortized;
+ * syscalls carrying only control frames (acks, heartbeats, control messages) are counted as control flushes.
+ */
+public class ChannelMetrics {
+
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder controlFlushes = new LongAdder();
+    private final LongAdder coalescedMessages = new LongAdder();
+    private final LongAdder coalescedFlushes = new LongAdder();
+    private final LongAdder naksSent = new LongAdder();
+    private final LongAdder retransmits = new LongAdder();
+    private final LongAdder messagesLost = new LongAdder();
+    private final LongAdder resumes = new LongAdder();
+
+    void recordSent(int messages) {
+        messagesSent.add(messages);
+    }
+
+    void recordReceived() {
+        messagesReceived.increment();
+    }
+
+    void recordFlush() {
+        flushes.increment();
+    }
+
+    void recordControlFlush() {
+        controlFlushes.increment();
+    }
+
+    void recordCoalescedFlush(int messages) {
+        coalescedFlushes.increment();
+        coalescedMessages.add(messages);
+    }
+
+    void recordNak() {
+        naksSent.increment();
+    }
+
+    void recordRetransmit(int messages) {
+        retransmits.add(messages);
+    }
+
+    void recordLost(long messages) {
+        messagesLost.add(messages);
+    }
+
+    void recordResume() {
+        resumes.increment();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    public long getMessagesReceived() {
+        return messagesReceived.sum();
+    }
+
+    /**
+     * @return write syscalls issued for messages
+     */
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * @return write syscalls that carried only control frames
+     */
+    public long getControlFlushes() {
+        return controlFlushes.sum();
+    }
+
+    /**
+     * @return messages that were held back and written together with others
+     */
+    public long getCoalescedMessages() {
+        return coalescedMessages.sum();
+    }
+
+    /**
+     * @return flushes triggered by the coalescing path (batch full or delay budget reached)
+     */
+    public long getCoalescedFlushes() {
+        return coalescedFlushes.sum();
+    }
+
+    /**
+     * @return negative acknowledgements sent for detected gaps
+     */
+    public long getNaksSent() {
+        return naksSent.sum();
+    }
+
+    /**
+     * @return messages sent again on request
+     */
+    public long getRetransmits() {
+        return retransmits.sum();
+    }
+
+    /**
+     * @return messages skipped because the sender no longer retained them
+     */
+    public long getMessagesLost() {
+        return messagesLost.sum();
+    }
+
+    /**
+     * @return sessions re-established after a dropped connection
+     */
+    public long getResumes() {
+        return resumes.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sent=%d, received=%d, flushes=%d, controlFlushes=%d, coalescedMessages=%d, "
+                        + "coalescedFlushes=%d, naks=%d, retransmits=%d, lost=%d, resumes=%d",
+                getMessagesSent(), getMessagesReceived(), getFlushes(), getControlFlushes(),
+                getCoalescedMessages(), getCoalescedFlushes(),
+                getNaksSent(), getRetransmits(), getMessagesLost(), getResumes());
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.playercommunication.channel;
+
+import com.playercommunication.config.ConfigLoader;
+import com.playercommunication.config.ConfigSnapshot;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Assembles the interceptor stages around a transport once, when the channel is created.
+ * Only enabled stages are stacked, innermost first: link emulation, compression, metrics, tracing. Metrics
+ * therefore count what the application handed over and tracing shows the messages as the Player sees them.
+ * With every stage off the transport itself is returned, so the default deployment has no extra call
+ * or allocation per message.
+ */
+public final class ChannelPipeline {
+
+    private ChannelPipeline() {
+    }
+
+    /**
+     * @param transport Channel carrying the messages
+     * @param name Player or endpoint name used by metrics and tracing output
+     * @return transport wrapped by the stages enabled in application.properties
+     */
+    public static MessageChannel assemble(MessageChannel transport, String name) {
+        return assemble(transport, name, ConfigLoader.snapshot());
+    }
+
+    public static MessageChannel assemble(MessageChannel transport, String name, ConfigSnapshot config) {
+        MessageChannel channel = transport;
+        if (config.emulationEnabled()) {
+            channel = new EmulatedLinkChannel(channel, config.emulationDelayMillis(), config.emulationJitterMillis(),
+                    config.emulationBandwidthKbps(), config.emulationLossPercent(), config.emulationRetransmitMillis(),
+                    config.emulationBufferMessages());
+        }
+        if (config.pipelineCompression()) {
+            channel = new CompressionChannel(channel, config.pipelineCompressionMinBytes());
+        }
+        if (config.pipelineMetrics()) {
+            channel = new MetricsChannel(channel, name);
+        }
+        if (config.pipelineTracing()) {
+            channel = new TracingChannel(channel, name, System.out);
+        }
+        return channel;
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.playercommunication.channel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Interceptor stage deflating large payloads. Both ends must enable it.
+ * Messages of at least minBytes UTF-8 bytes are sent as MARKER + Base64(deflate(UTF-8)) when that is shorter,
+ * everything else goes out as is; a plain message that happens to start with MARKER gets it doubled.
+ * Base64 keeps the result free of newlines for the line-framed transports. A compressed message that is
+ * corrupt or truncated fails the receive with an IOException.
+ */
+public final class CompressionChannel extends InterceptingChannel {
+
+    private static final char MARKER = '\u0001';
+
+    private final int minBytes;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED); // guarded by itself
+    private final Inflater inflater = new Inflater(); // guarded by itself
+    private byte[] deflated = new byte[1024]; // guarded by deflater
+    private byte[] inflated = new byte[1024]; // guarded by inflater
+
+    /**
+     * @param minBytes Messages with a shorter UTF-8 encoding are never compressed, the Base64 overhead would
+     *        outweigh the gain
+     */
+    public CompressionChannel(MessageChannel delegate, int minBytes) {
+        super(delegate);
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    protected String outbound(String message) {
+        if (reachesMinBytes(message)) {
+            String compressed = deflate(message);
+            if (compressed != null) return compressed;
+        }
+        return !message.isEmpty() && message.charAt(0) == MARKER ? MARKER + message : message;
+    }
+
+    @Override
+    protected String inbound(String message) throws IOException {
+        if (message.isEmpty() || message.charAt(0) != MARKER) return message;
+        if (message.length() > 1 && message.charAt(1) == MARKER) return message.substring(1);
+        return inflate(message);
+    }
+
+    // UTF-8 length counted without encoding, stops as soon as minBytes is reached
+    private boolean reachesMinBytes(String message) {
+        int length = message.length();
+        if (length >= minBytes) return true;
+        if (length * 3L < minBytes) return false; // at most 3 bytes per char
+        int bytes = 0;
+        for (int i = 0; i < length && bytes < minBytes; i++) {
+            char c = message.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(message.charAt(i + 1))) {
+                bytes += 4; // the pair
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes >= minBytes;
+    }
+
+    // null if the compressed form would not be shorter than the UTF-8 payload
+    private String deflate(String message) {
+        byte[] input = message.getBytes(StandardCharsets.UTF_8);
+        synchronized (deflater) {
+            deflater.reset();
+            deflater.setInput(input);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == deflated.length) deflated = Arrays.copyOf(deflated, length * 2);
+                length += deflater.deflate(deflated, length, deflated.length - length);
+            }
+            if (1 + 4 * ((length + 2) / 3) >= input.length) return null; // marker and Base64 of the result
+            return MARKER + Base64.getEncoder().encodeToString(Arrays.copyOf(deflated, length));
+        }
+    }
+
+    private String inflate(String message) throws IOException {
+        byte[] input;
+        try {
+            input = Base64.getDecoder().decode(message.substring(1));
+        } catch (IllegalArgumentException base64Exp) {
+            throw new IOException("Corrupt compressed message", base64Exp);
+        }
+        synchronized (inflater) {
+            inflater.reset();
+            inflater.setInput(input);
+            int length = 0;
+            try {
+                while (!inflater.finished()) {
+                    if (length == inflated.length) inflated = Arrays.copyOf(inflated, length * 2);
+                    int read = inflater.inflate(inflated, length, inflated.length - length);
+                    if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException("Truncated compressed message, " + length + " bytes inflated");
+                    }
+                    length += read;
+                }
+            } catch (DataFormatException dataExp) {
+                throw new IOException("Corrupt compressed message", dataExp);
+            }
+            return new String(inflated, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,373 @@
+package com.playercommunication.channel;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Decorator that makes any transport behave like a slower link: one-way delay, jitter, a bandwidth cap and loss
+ * are applied to everything this side sends, so wrapping both ends of a pair emulates a full round trip.
+ * Sends are stamped with their arrival time and parked in a delivery queue; the shared {@link HashedWheelTimer}
+ * wakes the link's delivery thread once they are due, no thread sleeps per message. That thread hands them to the
+ * wrapped channel with its blocking sends, so any transport works and a slow one never holds up the timer.
+ * Delivery keeps send order like a stream transport, so jitter stretches gaps instead of reordering.
+ * Loss either drops the message (datagram-like) or, with a retransmit delay, delivers it that much later
+ * and holds back everything behind it the way TCP's head-of-line blocking does.
+ * Sends return as soon as the message is queued, like writing into a socket buffer; with a buffer limit a full
+ * link makes sendMessage wait and parks async sends until deliveries free space. A message holds its space until
+ * the wrapped channel took it. A failed delivery fails that async send, and every later send like a broken socket.
+ * Receives are not delayed. Control messages travel in their own arrival-ordered queue, delivered ahead of data.
+ * {@link ChannelPipeline} adds it as the innermost stage when emulation.* is configured.
+ */
+public final class EmulatedLinkChannel implements MessageChannel {
+
+    private static final int FRAMING_BYTES = 1; // newline per message
+    private static final long SHUTDOWN_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MessageChannel delegate;
+    private final long delayNanos;
+    private final long jitterNanos;
+    private final long bitsPerSecond; // 0 = unlimited
+    private final double lossProbability;
+    private final long retransmitNanos; // 0 = lost messages are dropped
+    private final HashedWheelTimer timer = HashedWheelTimer.shared();
+    private final int bufferMessages; // 0 = unlimited
+    private final Queue<Transit> inTransit = new ConcurrentLinkedQueue<>(); // arrival order, delivery thread polls
+    private final Queue<Transit> controlInTransit = new ConcurrentLinkedQueue<>(); // same, for control messages
+    private final Thread deliveryThread = new Thread(this::runDelivery, "emulated-link-delivery");
+    private final Runnable wakeDelivery = () -> LockSupport.unpark(deliveryThread); // the only timer work
+    private final LongAdder messagesDropped = new LongAdder();
+    private final LongAdder messagesRetransmitted = new LongAdder();
+
+    // Guarded by this
+    private final SplittableRandom random = new SplittableRandom();
+    private long linkFreeNanos; // when the emulated wire has finished serializing the last message
+    private long lastArrivalNanos;
+    private long lastControlArrivalNanos;
+    private int transitCount; // data messages in inTransit
+    private final Queue<Transit> waitingSends = new ArrayDeque<>(); // async sends parked on a full buffer
+    private IOException deliveryFailure; // first failed hand-over, fails every later send
+    private boolean closed;
+
+    /**
+     * @param delegate Channel the delayed messages are finally handed to
+     * @param delayMillis One-way propagation delay
+     * @param jitterMillis Maximum deviation from the delay, either way
+     * @param bandwidthKbps Link rate in kilobits per second, 0 = unlimited
+     * @param lossPercent Share of messages lost, 0 to 100
+     * @param retransmitMillis Extra delay of a lost message until its re-send arrives, 0 drops it instead
+     */
+    public EmulatedLinkChannel(MessageChannel delegate, long delayMillis, long jitterMillis, long bandwidthKbps,
+            double lossPercent, long retransmitMillis) {
+        this(delegate, delayMillis, jitterMillis, bandwidthKbps, lossPercent, retransmitMillis, 0);
+    }
+
+    /**
+     * @param bufferMessages Messages that may be in transit at once before senders wait, 0 = unlimited
+     */
+    public EmulatedLinkChannel(MessageChannel delegate, long delayMillis, long jitterMillis, long bandwidthKbps,
+            double lossPercent, long retransmitMillis, int bufferMessages) {
+        if (delayMillis < 0 || jitterMillis < 0 || bandwidthKbps < 0 || retransmitMillis < 0
+                || lossPercent < 0 || lossPercent > 100 || bufferMessages < 0) {
+            throw new IllegalArgumentException("Invalid link emulation settings");
+        }
+        this.delegate = delegate;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        this.jitterNanos = TimeUnit.MILLISECONDS.toNanos(jitterMillis);
+        this.bitsPerSecond = bandwidthKbps * 1000;
+        this.lossProbability = lossPercent / 100;
+        this.retransmitNanos = TimeUnit.MILLISECONDS.toNanos(retransmitMillis);
+        this.bufferMessages = bufferMessages;
+        this.linkFreeNanos = System.nanoTime();
+        this.lastArrivalNanos = linkFreeNanos;
+        this.lastControlArrivalNanos = linkFreeNanos;
+        this.deliveryThread.setDaemon(true);
+    }
+
+    @Override
+    public void sendMessage(String message) throws IOException {
+        if (message == null) return;
+        synchronized (this) {
+            try {
+                while (!closed && isFull()) {
+                    wait(); // deliverDue frees the space
+                }
+            } catch (InterruptedException interrupExp) {
+                interrupExp.printStackTrace();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            checkDelivered();
+            if (!enqueue(message, null)) throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public void sendBatch(List<String> messages) throws IOException {
+        for (String message : messages) {
+            sendMessage(message);
+        }
+    }
+
+    /**
+     * @return Future completed once the message reached the wrapped channel, or was lost, failed if the wrapped
+     *         channel rejected it; on a full buffer the message waits for space first, cancelling the future
+     *         withdraws it
+     */
+    @Override
+    public CompletableFuture<Void> sendAsync(String message) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (message == null) {
+            future.complete(null);
+            return future;
+        }
+        synchronized (this) {
+            if (deliveryFailure != null) {
+                future.completeExceptionally(new IOException("Link delivery failed earlier", deliveryFailure));
+            } else if (!closed && isFull()) {
+                waitingSends.add(new Transit(message, 0, future));
+            } else if (!enqueue(message, future)) {
+                future.completeExceptionally(new ClosedChannelException());
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Control messages pay the propagation delay but skip the bandwidth queue and the buffer limit, matching
+     * the priority lane of the wrapped transport. They keep their order among themselves.
+     */
+    @Override
+    public void sendControl(String message) throws IOException {
+        if (message == null) return;
+        synchronized (this) {
+            if (closed) throw new ClosedChannelException();
+            checkDelivered();
+            long now = System.nanoTime();
+            long arrivalNanos = now + Math.max(0, delayNanos + nextJitter());
+            if (lastControlArrivalNanos - arrivalNanos > 0) arrivalNanos = lastControlArrivalNanos; // no overtaking
+            lastControlArrivalNanos = arrivalNanos;
+            controlInTransit.add(new Transit(message, arrivalNanos, null));
+            startDelivery();
+            timer.newTimeout(wakeDelivery, arrivalNanos - now, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public String receiveMessage() {
+        return delegate.receiveMessage();
+    }
+
+    @Override
+    public int receiveBatch(Collection<? super String> sink, int maxMessages) {
+        return delegate.receiveBatch(sink, maxMessages);
+    }
+
+    @Override
+    public CompletableFuture<String> receiveAsync() {
+        return delegate.receiveAsync();
+    }
+
+    /**
+     * Shuts the wrapped channel down once every message and control message still in transit was delivered,
+     * waiting for that at most the remaining transit time plus a second. Async sends still waiting for buffer
+     * space fail, blocked senders get a ClosedChannelException.
+     */
+    @Override
+    public void shutdown() {
+        Transit marker;
+        long waitNanos;
+        Queue<Transit> rejected;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            long now = System.nanoTime();
+            long arrivalNanos = lastArrivalNanos - now > 0 ? lastArrivalNanos : now;
+            if (lastControlArrivalNanos - arrivalNanos > 0) arrivalNanos = lastControlArrivalNanos;
+            marker = new Transit(null, arrivalNanos, new CompletableFuture<>());
+            inTransit.add(marker);
+            waitNanos = arrivalNanos - now;
+            startDelivery();
+            timer.newTimeout(wakeDelivery, waitNanos, TimeUnit.NANOSECONDS);
+            rejected = new ArrayDeque<>(waitingSends);
+            waitingSends.clear();
+            notifyAll();
+        }
+        for (Transit waiting : rejected) {
+            waiting.future().completeExceptionally(new ClosedChannelException());
+        }
+        try {
+            marker.future().get(waitNanos + SHUTDOWN_GRACE_NANOS, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException interrupExp) {
+            Thread.currentThread().interrupt();
+            delegate.shutdown();
+        } catch (TimeoutException | ExecutionException waitExp) {
+            delegate.shutdown(); // delivery stuck in a wrapped send, do not hold the caller any longer
+        }
+    }
+
+    /**
+     * @return messages lost without a re-send
+     */
+    public long getMessagesDropped() {
+        return messagesDropped.sum();
+    }
+
+    /**
+     * @return lost messages delivered late after the emulated re-send
+     */
+    public long getMessagesRetransmitted() {
+        return messagesRetransmitted.sum();
+    }
+
+    // Must hold this, parked async sends go first
+    private boolean isFull() {
+        return bufferMessages > 0 && (transitCount >= bufferMessages || !waitingSends.isEmpty());
+    }
+
+    // Must hold this, a blocking send learns about an earlier failed delivery like a write on a broken socket
+    private void checkDelivered() throws IOException {
+        if (deliveryFailure != null) throw new IOException("Link delivery failed earlier", deliveryFailure);
+    }
+
+    // Must hold this
+    private void startDelivery() {
+        if (deliveryThread.getState() == Thread.State.NEW) deliveryThread.start();
+    }
+
+    // Stamps the arrival time and queues the message, false once shut down
+    private synchronized boolean enqueue(String message, CompletableFuture<Void> future) {
+        if (closed) return false;
+        long now = System.nanoTime();
+        long departureNanos = (linkFreeNanos - now > 0 ? linkFreeNanos : now) + transmitNanos(message);
+        linkFreeNanos = departureNanos; // lost messages used the wire too
+        if (lossProbability > 0 && random.nextDouble() < lossProbability) {
+            if (retransmitNanos == 0) {
+                messagesDropped.increment();
+                if (future != null) future.complete(null);
+                return true;
+            }
+            messagesRetransmitted.increment();
+            departureNanos += retransmitNanos;
+        }
+        long arrivalNanos = departureNanos + Math.max(0, delayNanos + nextJitter());
+        if (lastArrivalNanos - arrivalNanos > 0) arrivalNanos = lastArrivalNanos; // no overtaking
+        lastArrivalNanos = arrivalNanos;
+        inTransit.add(new Transit(message, arrivalNanos, future)); // under the lock, so queue order is arrival order
+        transitCount++;
+        startDelivery();
+        timer.newTimeout(wakeDelivery, arrivalNanos - now, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    private long transmitNanos(String message) {
+        if (bitsPerSecond == 0) return 0;
+        long bits = (message.length() + FRAMING_BYTES) * 8L; // chars as bytes, exact for ASCII payloads
+        return bits * 1_000_000_000L / bitsPerSecond;
+    }
+
+    // Must hold this
+    private long nextJitter() {
+        return jitterNanos == 0 ? 0 : random.nextLong(-jitterNanos, jitterNanos + 1);
+    }
+
+    // Delivery thread, parks between deliveries until the timer or a spurious wake-up unparks it
+    private void runDelivery() {
+        while (!deliverDue()) {
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Delivery thread only, hands every due message over in arrival order. Control messages go first on a tie,
+     * so the shutdown marker, stamped no earlier than the last control message, arrives behind all of them.
+     * @return true once the shutdown marker was delivered
+     */
+    private boolean deliverDue() {
+        while (true) {
+            Transit control = controlInTransit.peek();
+            Transit transit = inTransit.peek();
+            if (control == null && transit == null) return false;
+            boolean controlFirst = transit == null
+                    || (control != null && transit.arrivalNanos() - control.arrivalNanos() >= 0);
+            Transit next = controlFirst ? control : transit;
+            long remainingNanos = next.arrivalNanos() - System.nanoTime();
+            if (remainingNanos > 0) {
+                timer.newTimeout(wakeDelivery, remainingNanos, TimeUnit.NANOSECONDS);
+                return false;
+            }
+            if (controlFirst) {
+                controlInTransit.poll();
+                deliverControl(control.message());
+            } else {
+                inTransit.poll();
+                if (transit.message() == null) {
+                    delegate.shutdown();
+                    transit.future().complete(null);
+                    return true;
+                }
+                deliver(transit);
+            }
+        }
+    }
+
+    private void deliverControl(String message) {
+        try {
+            delegate.sendControl(message);
+        } catch (IOException ioExp) {
+            deliveryFailed(ioExp);
+        }
+    }
+
+    // The slot is freed only once the wrapped channel took the message, so the buffer limit covers it
+    private void deliver(Transit transit) {
+        CompletableFuture<Void> future = transit.future();
+        if (future != null && future.isDone()) { // withdrawn by the sender
+            releaseSlot();
+            return;
+        }
+        try {
+            delegate.sendMessage(transit.message());
+            if (future != null) future.complete(null);
+        } catch (IOException | RuntimeException sendExp) {
+            IOException ioExp = sendExp instanceof IOException failure ? failure : new IOException(sendExp);
+            deliveryFailed(ioExp);
+            if (future != null) future.completeExceptionally(ioExp);
+        }
+        releaseSlot();
+    }
+
+    private synchronized void deliveryFailed(IOException ioExp) {
+        if (deliveryFailure == null) deliveryFailure = ioExp;
+    }
+
+    // A message left the link, admits parked async sends and wakes blocked senders
+    private synchronized void releaseSlot() {
+        transitCount--;
+        if (bufferMessages == 0) return;
+        Transit waiting;
+        while (transitCount < bufferMessages && (waiting = waitingSends.poll()) != null) {
+            if (!waiting.future().isDone()) { // else withdrawn by the sender
+                enqueue(waiting.message(), waiting.future());
+            }
+        }
+        notifyAll();
+    }
+
+    // message null marks the shutdown, future null for control messages and blocking sends
+    private record Transit(String message, long arrivalNanos, CompletableFuture<Void> future) {
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.playercommunication.channel;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Hashed-wheel timer shared by the channels for heartbeats, idle detection and send/receive deadlines.
+ * A timeout is hashed into one of WHEEL_SIZE buckets by its deadline tick; scheduling and cancelling are O(1),
+ * so thousands of channels cost one timer thread instead of one timed wait per operation.
+ * Deadlines have tick (1 ms) resolution. Tasks run on the timer thread and must be short - hand anything
+ * that touches a socket to the {@link NetworkEventLoop}.
+ */
+final class HashedWheelTimer implements Runnable {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int WHEEL_SIZE = 512; // power of two, one round covers 512 ms
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private static volatile HashedWheelTimer shared;
+
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+    private long tick; // timer thread only
+
+    private HashedWheelTimer() {
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        Thread thread = new Thread(this, "hashed-wheel-timer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static HashedWheelTimer shared() {
+        HashedWheelTimer timer = shared;
+        if (timer == null) {
+            synchronized (HashedWheelTimer.class) {
+                timer = shared;
+                if (timer == null) {
+                    timer = new HashedWheelTimer();
+                    shared = timer;
+                }
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * Runs the task on the timer thread once the delay has passed, unless cancelled first.
+     */
+    Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startNanos + unit.toNanos(delay));
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Fails the future with TimeoutException unless it completes in time, like
+     * {@link CompletableFuture#orTimeout} but without a heap-ordered delay queue.
+     * @return the same future
+     */
+    <T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        if (future.isDone()) return future;
+        Timeout deadline = newTimeout(() -> future.completeExceptionally(new TimeoutException()), timeout, unit);
+        future.whenComplete((result, failure) -> deadline.cancel());
+        return future;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            long deadlineNanos = startNanos + (tick + 1) * TICK_NANOS;
+            long sleepNanos;
+            while ((sleepNanos = deadlineNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(sleepNanos);
+            }
+            removeCancelled();
+            transferAdded();
+            expire(wheel[(int) (tick & (WHEEL_SIZE - 1))]);
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    // Moves newly scheduled timeouts into their bucket, overdue ones go into the current tick
+    private void transferAdded() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = added.poll();
+            if (timeout == null) return;
+            if (timeout.state != Timeout.PENDING) continue;
+
+            long deadlineTick = timeout.deadlineNanos / TICK_NANOS;
+            timeout.remainingRounds = (deadlineTick - tick) / WHEEL_SIZE;
+            long bucketTick = Math.max(deadlineTick, tick);
+            wheel[(int) (bucketTick & (WHEEL_SIZE - 1))].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                timeout.expire();
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final Runnable task;
+        private final long deadlineNanos; // relative to startNanos
+        private volatile int state = PENDING;
+
+        // Timer thread only
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * @return false if the task already ran or was cancelled before
+         */
+        boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) return false;
+            cancelled.add(this); // unlinked from its bucket on the next tick
+            return true;
+        }
+
+        boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) return;
+            try {
+                task.run();
+            } catch (RuntimeException taskExp) {
+                taskExp.printStackTrace(); // keep the other timeouts on schedule
+            }
+        }
+    }
+
+    // Doubly linked list so a cancelled timeout is unlinked in O(1). Timer thread only.
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.playercommunication.channel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Base of one interceptor stage: a decorator that sees every message on its way out ({@link #outbound})
+ * and on its way in ({@link #inbound}) and forwards everything else untouched.
+ * Stages are stacked by {@link ChannelPipeline} when the channel is created; a disabled stage is simply not
+ * in the stack, so it costs nothing per message.
+ * A message that could not be transformed fails the receive with an IOException (unchecked for the blocking
+ * receives) instead of reaching the caller corrupted.
+ */
+public abstract class InterceptingChannel implements MessageChannel {
+
+    protected final MessageChannel delegate;
+    private final List<String> drained = new ArrayList<>(); // receiveBatch scratch, guarded by itself
+    private final Queue<String> returned = new ConcurrentLinkedQueue<>(); // taken for abandoned async receives
+
+    protected InterceptingChannel(MessageChannel delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return the message to hand to the next stage, never null for a non-null message
+     */
+    protected abstract String outbound(String message);
+
+    /**
+     * @return the message to hand back to the caller, null only at end of stream
+     * @throws IOException if the message is corrupt and cannot be handed back
+     */
+    protected abstract String inbound(String message) throws IOException;
+
+    @Override
+    public void sendMessage(String message) throws IOException {
+        if (message == null) return;
+        delegate.sendMessage(outbound(message));
+    }
+
+    @Override
+    public void sendControl(String message) throws IOException {
+        if (message == null) return;
+        delegate.sendControl(outbound(message));
+    }
+
+    @Override
+    public void sendBatch(List<String> messages) throws IOException {
+        List<String> transformed = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            if (message != null) transformed.add(outbound(message));
+        }
+        delegate.sendBatch(transformed);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendAsync(String message) {
+        return delegate.sendAsync(message == null ? null : outbound(message));
+    }
+
+    /**
+     * @throws UncheckedIOException if the stage cannot transform the message
+     */
+    @Override
+    public String receiveMessage() {
+        String message = returned.poll();
+        if (message == null) message = delegate.receiveMessage();
+        return message == null ? null : transform(message);
+    }
+
+    /**
+     * @throws UncheckedIOException if the stage cannot transform a message; the ones before it are in the sink,
+     *         the ones behind it go to the next receive
+     */
+    @Override
+    public int receiveBatch(Collection<? super String> sink, int maxMessages) {
+        synchronized (drained) {
+            String message;
+            while (drained.size() < maxMessages && (message = returned.poll()) != null) {
+                drained.add(message);
+            }
+            if (drained.isEmpty()) delegate.receiveBatch(drained, maxMessages);
+            int count = 0;
+            try {
+                for (String received : drained) {
+                    sink.add(inbound(received));
+                    count++;
+                }
+            } catch (IOException ioExp) {
+                for (int i = count + 1; i < drained.size(); i++) { // behind any still returned, order is kept
+                    returned.add(drained.get(i));
+                }
+                throw new UncheckedIOException(ioExp);
+            } finally {
+                drained.clear();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Cancelling the returned future, or timing it out, withdraws the receive from the wrapped channel too,
+     * so the next message goes to the next receiver instead of the abandoned one. A message the wrapped channel
+     * handed over just as the receive was abandoned is kept for this channel's next receive.
+     */
+    @Override
+    public CompletableFuture<String> receiveAsync() {
+        String waiting = returned.poll();
+        if (waiting != null) {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            complete(result, waiting);
+            return result;
+        }
+        CompletableFuture<String> source = delegate.receiveAsync();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        result.whenComplete((message, receiveExp) -> {
+            if (result.isCancelled() || receiveExp instanceof TimeoutException) {
+                source.cancel(false); // first, a message that still got through comes back below
+            }
+        });
+        source.whenComplete((message, receiveExp) -> {
+            if (receiveExp != null) {
+                result.completeExceptionally(receiveExp);
+            } else if (result.isDone()) {
+                if (message != null) returned.add(message); // abandoned meanwhile
+            } else {
+                complete(result, message);
+            }
+        });
+        return result;
+    }
+
+    private void complete(CompletableFuture<String> result, String message) {
+        if (message == null) {
+            result.complete(null);
+            return;
+        }
+        boolean delivered;
+        try {
+            delivered = result.complete(inbound(message));
+        } catch (IOException ioExp) {
+            delivered = result.completeExceptionally(ioExp);
+        }
+        if (!delivered) returned.add(message); // abandoned while it was transformed
+    }
+
+    private String transform(String message) {
+        try {
+            return inbound(message);
+        } catch (IOException ioExp) {
+            throw new UncheckedIOException(ioExp);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+}
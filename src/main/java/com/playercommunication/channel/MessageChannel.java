@@ -1,11 +1,17 @@
 package com.playercommunication.channel;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Tharmaraj Marimuthu
  * MessageChannel interface for sending and receiving messages between players.
  * Implementations can vary based on communication method ( Same process, Separate process).
+ * Blocking methods own the calling thread; the async methods return immediately so a few threads
+ * can drive many conversations. Async support is per transport, see {@link #sendAsync} and {@link #receiveAsync}.
  */
 public interface MessageChannel {
 
@@ -15,4 +21,81 @@ public interface MessageChannel {
 
     void shutdown();
 
+    /**
+     * Sends a message on the control lane. Transports with lanes hand it over without waiting behind queued data
+     * and their receivers return it before any data already waiting (strict priority); without lanes it is
+     * sent as data.
+     * @param message Control message, null is ignored
+     */
+    default void sendControl(String message) throws IOException {
+        sendMessage(message);
+    }
+
+    /**
+     * Sends a burst of messages in order. Transports override this to pay one lock handoff
+     * or one syscall for the whole burst instead of one per message.
+     * @param messages Messages to send, null entries are ignored
+     */
+    default void sendBatch(List<String> messages) throws IOException {
+        for (String message : messages) {
+            sendMessage(message);
+        }
+    }
+
+    /**
+     * Blocks until at least one message is available, then moves up to maxMessages into the sink.
+     * @param sink Collection receiving the messages in arrival order
+     * @param maxMessages Upper bound on messages moved
+     * @return Number of messages added, 0 once the channel reached end of stream
+     */
+    default int receiveBatch(Collection<? super String> sink, int maxMessages) {
+        if (maxMessages <= 0) return 0;
+        String message = receiveMessage();
+        if (message == null) return 0;
+        sink.add(message);
+        return 1;
+    }
+
+    /**
+     * Sends a message without blocking the caller.
+     * The future completes once the message is handed to the transport. Cancelling it before then
+     * (or letting it time out) withdraws the message. Only transports that can keep that promise implement it;
+     * the default fails with UnsupportedOperationException, since parking the blocking call on a thread could
+     * not withdraw anything.
+     * @param message Message to send, null is ignored
+     * @return Future completed when the message has been handed over
+     */
+    default CompletableFuture<Void> sendAsync(String message) {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException(getClass().getSimpleName() + " has no async send"));
+    }
+
+    /**
+     * Receives the next message without blocking the caller.
+     * The future completes with null once the channel reaches end of stream. Cancelling it (or letting it
+     * time out) gives up the claim on the next message, which stays available for later receivers.
+     * The default fails with UnsupportedOperationException: a thread blocked in receiveMessage would still
+     * take the message after the caller gave up and lose it.
+     * @return Future completed with the next message
+     */
+    default CompletableFuture<String> receiveAsync() {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException(getClass().getSimpleName() + " has no async receive"));
+    }
+
+    /**
+     * Async send that fails with TimeoutException if the message is not handed over in time.
+     * The deadline lives on the shared {@link HashedWheelTimer}, millisecond resolution.
+     */
+    default CompletableFuture<Void> sendAsync(String message, long timeout, TimeUnit unit) {
+        return HashedWheelTimer.shared().orTimeout(sendAsync(message), timeout, unit);
+    }
+
+    /**
+     * Async receive that fails with TimeoutException if no message arrives in time.
+     */
+    default CompletableFuture<String> receiveAsync(long timeout, TimeUnit unit) {
+        return HashedWheelTimer.shared().orTimeout(receiveAsync(), timeout, unit);
+    }
+
 }
@@ -0,0 +1,44 @@
+package com.playercommunication.channel;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Interceptor stage counting messages in both directions, for transports without their own counters
+ * or to see what the application handed over before compression.
+ * The counters are printed when the channel shuts down.
+ */
+public final class MetricsChannel extends InterceptingChannel {
+
+    private final String name;
+    private final ChannelMetrics metrics = new ChannelMetrics();
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    public MetricsChannel(MessageChannel delegate, String name) {
+        super(delegate);
+        this.name = name;
+    }
+
+    @Override
+    protected String outbound(String message) {
+        metrics.recordSent(1);
+        return message;
+    }
+
+    @Override
+    protected String inbound(String message) {
+        metrics.recordReceived();
+        return message;
+    }
+
+    public ChannelMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        if (reported.compareAndSet(false, true)) System.out.println("[" + name + "] Channel metrics: " + metrics);
+    }
+
+}
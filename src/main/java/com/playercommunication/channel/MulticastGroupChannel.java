@@ -0,0 +1,443 @@
+package com.playercommunication.channel;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.MembershipKey;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.playercommunication.config.ConfigLoader;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * MulticastGroupChannel for one-to-many communication across JVM processes over UDP multicast.
+ * A single send reaches every subscriber of the group on the loopback interface.
+ * Every message carries the sender id and a per-sender sequence number; receivers deliver in order,
+ * detect gaps and send a NAK back to the sender, which retransmits from a small in-memory retention
+ * buffer (or reports the range as lost once it was evicted). Senders heartbeat their last sequence for
+ * TAIL_HEARTBEATS intervals after their last send, so a lost tail is detected even if some heartbeats are lost
+ * too. There is a single lane: {@link #sendControl} messages are sent as data.
+ * All socket work runs on the shared {@link NetworkEventLoop}.
+ * Async receivers wait as futures the loop thread completes in delivery order; a datagram send never blocks,
+ * so sendAsync sends right away.
+ */
+public class MulticastGroupChannel implements MessageChannel {
+
+    static final byte TYPE_DATA = 1;
+    static final byte TYPE_NAK = 2;
+    static final byte TYPE_LOST = 3;
+    static final byte TYPE_HEARTBEAT = 4;
+    static final int HEADER_SIZE = 13; // type(1) + senderId(4) + sequence(8)
+    static final int CONTROL_SIZE = HEADER_SIZE + 8; // + range end for NAK/LOST
+
+    private static final int MAX_DATAGRAM = 65_507;
+    private static final long NAK_RETRY_NANOS = 5_000_000;
+    private static final long HEARTBEAT_INTERVAL_NANOS = 10_000_000;
+    private static final int TAIL_HEARTBEATS = 10; // repeats of the last sequence once sends stop
+    private static final String END_OF_STREAM = new String(); // identity marker, never equals() a message
+
+    private final int senderId = ThreadLocalRandom.current().nextInt();
+    private final InetSocketAddress groupAddress;
+    private final DatagramChannel groupChannel; // joined to the group, receives data and heartbeats
+    private final DatagramChannel unicastChannel; // sends to the group, receives NAKs, LOSTs and retransmits
+    private final MembershipKey membership;
+    private final NetworkEventLoop eventLoop = NetworkEventLoop.shared();
+    private final ChannelMetrics metrics = new ChannelMetrics();
+    private volatile boolean closed;
+
+    // Sender side - guarded by retention
+    private final byte[][] retention;
+    private final long[] retainedSequence;
+    private long nextSequence;
+    private final AtomicBoolean heartbeatScheduled = new AtomicBoolean();
+    private long lastHeartbeatSequence = -1; // loop thread only
+    private int tailHeartbeats; // loop thread only, heartbeats sent since the last sequence changed
+    private final Runnable heartbeatTask = this::heartbeat;
+
+    // Receiver side - loop thread only
+    private final Map<Integer, SourceState> sources = new HashMap<>();
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(MAX_DATAGRAM);
+    private final BlockingDeque<String> deliveredMessages = new LinkedBlockingDeque<>();
+    private final Queue<CompletableFuture<String>> pendingReceives = new ArrayDeque<>(); // guarded by itself
+
+    // Per sender receive state
+    private static final class SourceState {
+        private final int senderId;
+        private final SocketAddress address; // sender's unicast socket, target of NAKs
+        private long expectedSequence;
+        private long highestKnownSequence;
+        private final TreeMap<Long, String> outOfOrder = new TreeMap<>();
+        private boolean nakInFlight;
+
+        private SourceState(int senderId, SocketAddress address, long expectedSequence) {
+            this.senderId = senderId;
+            this.address = address;
+            this.expectedSequence = expectedSequence;
+            this.highestKnownSequence = expectedSequence - 1;
+        }
+    }
+
+    public MulticastGroupChannel(String playerId, String group, int port) throws IOException {
+        this(playerId, group, port, ConfigLoader.getMulticastRetentionSize());
+    }
+
+    /**
+     * @param playerId Player using the channel
+     * @param group IPv4 multicast group address
+     * @param port Group port, shared by every member
+     * @param retentionSize Sent messages kept for retransmission, a power of two
+     */
+    public MulticastGroupChannel(String playerId, String group, int port, int retentionSize) throws IOException {
+        if (retentionSize <= 0 || Integer.bitCount(retentionSize) != 1) {
+            throw new IllegalArgumentException("Retention size must be a power of two: " + retentionSize);
+        }
+        this.retention = new byte[retentionSize][];
+        this.retainedSequence = new long[retentionSize];
+
+        InetAddress loopbackAddress = InetAddress.getLoopbackAddress();
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(loopbackAddress);
+        InetAddress groupInet = InetAddress.getByName(group);
+        this.groupAddress = new InetSocketAddress(groupInet, port);
+
+        this.groupChannel = DatagramChannel.open(StandardProtocolFamily.INET)
+                .setOption(StandardSocketOptions.SO_REUSEADDR, true)
+                .bind(new InetSocketAddress(port));
+        this.membership = groupChannel.join(groupInet, loopback);
+        this.unicastChannel = DatagramChannel.open(StandardProtocolFamily.INET)
+                .setOption(StandardSocketOptions.IP_MULTICAST_IF, loopback)
+                .setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true)
+                .bind(new InetSocketAddress(loopbackAddress, 0));
+
+        groupChannel.configureBlocking(false);
+        unicastChannel.configureBlocking(false);
+        watch(groupChannel);
+        watch(unicastChannel);
+    }
+
+    @Override
+    public void sendMessage(String message) throws IOException {
+        if (message == null) return;
+
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        if (payload.length > MAX_DATAGRAM - HEADER_SIZE) {
+            throw new IOException("Message of " + payload.length + " bytes does not fit in one datagram");
+        }
+        synchronized (retention) {
+            long sequence = nextSequence++;
+            byte[] packet = dataPacket(senderId, sequence, payload).array();
+            int slot = (int) sequence & (retention.length - 1);
+            retention[slot] = packet;
+            retainedSequence[slot] = sequence;
+            // A datagram dropped for lack of buffer space is recovered through the NAK path
+            metrics.recordFlush();
+            unicastChannel.send(ByteBuffer.wrap(packet), groupAddress);
+        }
+        metrics.recordSent(1);
+        if (heartbeatScheduled.compareAndSet(false, true)) {
+            eventLoop.schedule(heartbeatTask, HEARTBEAT_INTERVAL_NANOS);
+        }
+    }
+
+    @Override
+    public String receiveMessage() {
+        try {
+            String message = deliveredMessages.take();
+            if (message == END_OF_STREAM) {
+                deliveredMessages.add(END_OF_STREAM); // keep later receivers released too
+                return null;
+            }
+            return message;
+        } catch (InterruptedException interrupExp) {
+            interrupExp.printStackTrace();
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Sends at once, the future is already complete.
+     */
+    @Override
+    public CompletableFuture<Void> sendAsync(String message) {
+        try {
+            sendMessage(message);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException ioExp) {
+            return CompletableFuture.failedFuture(ioExp);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> receiveAsync() {
+        CompletableFuture<String> receiver = new CompletableFuture<>();
+        synchronized (pendingReceives) {
+            String message = deliveredMessages.poll();
+            if (message == null) {
+                pendingReceives.removeIf(CompletableFuture::isDone); // cancelled or timed out
+                pendingReceives.add(receiver);
+                return receiver;
+            }
+            if (message == END_OF_STREAM) {
+                deliveredMessages.addFirst(END_OF_STREAM); // keep later receivers released too
+                message = null;
+            }
+            receiver.complete(message);
+        }
+        return receiver;
+    }
+
+    @Override
+    public void shutdown() {
+        closed = true;
+        try {
+            membership.drop();
+            groupChannel.close();
+            unicastChannel.close();
+        } catch (IOException ioExp) {
+            ioExp.printStackTrace();
+        }
+        List<CompletableFuture<String>> waiting;
+        synchronized (pendingReceives) {
+            waiting = new ArrayList<>(pendingReceives);
+            pendingReceives.clear();
+            deliveredMessages.add(END_OF_STREAM);
+        }
+        for (CompletableFuture<String> receiver : waiting) {
+            receiver.complete(null);
+        }
+    }
+
+    public ChannelMetrics getMetrics() {
+        return metrics;
+    }
+
+    int senderId() {
+        return senderId;
+    }
+
+    // Address NAKs for this sender's messages must be sent to
+    SocketAddress unicastAddress() throws IOException {
+        return unicastChannel.getLocalAddress();
+    }
+
+    private void watch(DatagramChannel channel) {
+        eventLoop.watch(channel, SelectionKey.OP_READ, new NetworkEventLoop.SelectionHandler() {
+            @Override
+            public void onReady(int readyOps) {
+                drain(channel);
+                if (!closed) eventLoop.watch(channel, SelectionKey.OP_READ, this);
+            }
+
+            @Override
+            public void onClosed() {
+                // Nothing pending on the socket itself, receivers were released by shutdown
+            }
+        });
+    }
+
+    // Loop thread: handles every datagram the socket has queued
+    private void drain(DatagramChannel channel) {
+        try {
+            SocketAddress source;
+            while ((source = channel.receive(receiveBuffer)) != null) {
+                receiveBuffer.flip();
+                handlePacket(receiveBuffer, source);
+                receiveBuffer.clear();
+            }
+        } catch (IOException ioExp) {
+            if (!closed) ioExp.printStackTrace();
+        }
+    }
+
+    private void handlePacket(ByteBuffer packet, SocketAddress source) {
+        if (packet.remaining() < HEADER_SIZE) return;
+        byte type = packet.get();
+        int sender = packet.getInt();
+        long sequence = packet.getLong();
+
+        if (type == TYPE_NAK) {
+            if (sender == senderId && packet.remaining() >= 8) retransmit(sequence, packet.getLong(), source);
+            return;
+        }
+        if (sender == senderId) return; // own multicast looped back
+        switch (type) {
+            case TYPE_DATA -> onData(sender, sequence, StandardCharsets.UTF_8.decode(packet).toString(), source);
+            case TYPE_HEARTBEAT -> onHeartbeat(sender, sequence, source);
+            case TYPE_LOST -> {
+                if (packet.remaining() >= 8) onLost(sender, sequence, packet.getLong());
+            }
+            default -> { } // unknown packet type
+        }
+    }
+
+    private void onData(int sender, long sequence, String message, SocketAddress source) {
+        SourceState state = sources.computeIfAbsent(sender, id -> new SourceState(id, source, sequence));
+        state.highestKnownSequence = Math.max(state.highestKnownSequence, sequence);
+        if (sequence < state.expectedSequence) return; // duplicate or late retransmit
+
+        if (sequence == state.expectedSequence) {
+            deliver(message);
+            state.expectedSequence++;
+            deliverInOrder(state);
+        } else {
+            state.outOfOrder.putIfAbsent(sequence, message);
+        }
+        requestMissing(state);
+    }
+
+    private void onHeartbeat(int sender, long lastSequence, SocketAddress source) {
+        // A new member starts after the heartbeat, it has nothing to recover
+        SourceState state = sources.computeIfAbsent(sender, id -> new SourceState(id, source, lastSequence + 1));
+        state.highestKnownSequence = Math.max(state.highestKnownSequence, lastSequence);
+        requestMissing(state);
+    }
+
+    private void onLost(int sender, long from, long to) {
+        SourceState state = sources.get(sender);
+        if (state == null || to < state.expectedSequence) return;
+
+        NavigableMap<Long, String> received = state.outOfOrder.headMap(to, true);
+        long missing = to - state.expectedSequence + 1 - received.size();
+        for (String message : received.values()) {
+            deliver(message);
+        }
+        received.clear();
+        metrics.recordLost(missing);
+        state.expectedSequence = to + 1;
+        deliverInOrder(state);
+    }
+
+    private void deliverInOrder(SourceState state) {
+        String message;
+        while ((message = state.outOfOrder.remove(state.expectedSequence)) != null) {
+            deliver(message);
+            state.expectedSequence++;
+        }
+    }
+
+    // Loop thread: the oldest waiting async receiver gets the message, otherwise it waits for receiveMessage
+    private void deliver(String message) {
+        metrics.recordReceived();
+        while (true) {
+            CompletableFuture<String> receiver;
+            synchronized (pendingReceives) {
+                receiver = pendingReceives.poll();
+                if (receiver == null) {
+                    deliveredMessages.add(message);
+                    return;
+                }
+            }
+            if (receiver.complete(message)) return; // outside the lock, false if it gave up meanwhile
+        }
+    }
+
+    /**
+     * NAKs the first missing range. At most one NAK per source is in flight, the retry timer
+     * asks again while the gap is still open.
+     */
+    private void requestMissing(SourceState state) {
+        if (state.nakInFlight || closed) return;
+        long to = state.outOfOrder.isEmpty() ? state.highestKnownSequence : state.outOfOrder.firstKey() - 1;
+        if (to < state.expectedSequence) return;
+
+        sendControlPacket(TYPE_NAK, state.senderId, state.expectedSequence, to, state.address);
+        metrics.recordNak();
+        state.nakInFlight = true;
+        eventLoop.schedule(() -> {
+            state.nakInFlight = false;
+            requestMissing(state);
+        }, NAK_RETRY_NANOS);
+    }
+
+    // Loop thread: answers a NAK from the retention buffer, reporting evicted messages as lost
+    private void retransmit(long from, long to, SocketAddress requester) {
+        synchronized (retention) {
+            long last = Math.min(to, nextSequence - 1);
+            long oldestRetained = Math.max(0, nextSequence - retention.length);
+            if (from < oldestRetained) {
+                sendControlPacket(TYPE_LOST, senderId, from, Math.min(last, oldestRetained - 1), requester);
+            }
+            int resent = 0;
+            for (long sequence = Math.max(from, oldestRetained); sequence <= last; sequence++) {
+                int slot = (int) sequence & (retention.length - 1);
+                if (retainedSequence[slot] != sequence) continue;
+                try {
+                    unicastChannel.send(ByteBuffer.wrap(retention[slot]), requester);
+                    resent++;
+                } catch (IOException ioExp) {
+                    if (!closed) ioExp.printStackTrace();
+                    break;
+                }
+            }
+            metrics.recordRetransmit(resent);
+        }
+    }
+
+    // Loop thread: keeps announcing the last sequence while sends continue and for TAIL_HEARTBEATS intervals
+    // after, so a lost tail is NAKed even when a heartbeat is lost as well
+    private void heartbeat() {
+        long last = lastSentSequence();
+        if (last != lastHeartbeatSequence) {
+            lastHeartbeatSequence = last;
+            tailHeartbeats = 0;
+        }
+        if (!closed && tailHeartbeats < TAIL_HEARTBEATS) {
+            tailHeartbeats++;
+            sendControlPacket(TYPE_HEARTBEAT, senderId, last, last, groupAddress);
+            eventLoop.schedule(heartbeatTask, HEARTBEAT_INTERVAL_NANOS);
+            return;
+        }
+        heartbeatScheduled.set(false);
+        // A send may have slipped in after the check above
+        if (!closed && lastSentSequence() != lastHeartbeatSequence && heartbeatScheduled.compareAndSet(false, true)) {
+            eventLoop.schedule(heartbeatTask, HEARTBEAT_INTERVAL_NANOS);
+        }
+    }
+
+    private long lastSentSequence() {
+        synchronized (retention) {
+            return nextSequence - 1;
+        }
+    }
+
+    private void sendControlPacket(byte type, int sender, long from, long to, SocketAddress target) {
+        try {
+            unicastChannel.send(controlPacket(type, sender, from, to), target);
+        } catch (IOException ioExp) {
+            if (!closed) ioExp.printStackTrace();
+        }
+    }
+
+    static ByteBuffer dataPacket(int senderId, long sequence, byte[] payload) {
+        ByteBuffer packet = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        packet.put(TYPE_DATA).putInt(senderId).putLong(sequence).put(payload).flip();
+        return packet;
+    }
+
+    static ByteBuffer controlPacket(byte type, int senderId, long from, long to) {
+        ByteBuffer packet = ByteBuffer.allocate(CONTROL_SIZE);
+        packet.put(type).putInt(senderId).putLong(from).putLong(to).flip();
+        return packet;
+    }
+
+}
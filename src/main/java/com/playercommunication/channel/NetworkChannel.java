@@ -1,78 +1,244 @@
 package com.playercommunication.channel;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.net.ConnectException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.playercommunication.config.ConfigLoader;
 
 /**
  * @author Tharmaraj Marimuthu
  * NetworkChannel for inter-process communication using TCP sockets.
  * Configured for low latency with TCP_NODELAY, small buffers, and TOS=LOWDELAY.
+ * The socket runs non-blocking: blocking calls wait on a private selector, async calls
+ * are completed by the shared {@link NetworkEventLoop} when the socket becomes ready.
+ * Messages are framed by a new line. Bursts go out with gathering writes and are read back
+ * with one read syscall, see sendBatch/receiveBatch.
+ * Adaptive flush: like Nagle's algorithm but with a latency bound, sendMessage writes at once unless data it
+ * flushed within network.flush.max.delay.micros is still unanswered by the peer or messages are already held
+ * back; then it holds the message back for at most that delay and writes the lot in one syscall. A
+ * request/reply exchange therefore never waits, a one-way burst is coalesced.
+ * Control frames are lines starting with ESC followed by a code; a data line holding a newline, carriage
+ * return or ESC byte is sent as ESC ESC followed by the payload with those bytes escaped (ESC ESC, ESC n, ESC r),
+ * so binary payloads such as {@link com.playercommunication.message.MessageCodec} output survive the line
+ * framing. A message whose chars all fit in a byte and that has some above ASCII - a binary record - goes
+ * out as ESC b and its ISO-8859-1 bytes, escaped the same way, instead of UTF-8 doubling every byte >= 0x80.
+ * shutdown sends an end-of-stream frame so the peer can tell a finished conversation from a dropped connection.
+ * Reliable session (network.session.resume.timeout.ms > 0): sent messages are numbered implicitly by
+ * their order and retained until the peer's cumulative ack. If the connection drops without an
+ * end-of-stream frame, the client reconnects and the server re-accepts; each side then re-sends
+ * everything after the peer's last ack and the peer skips what it had already received.
+ * Liveness (network.heartbeat.interval.ms > 0): a {@link HashedWheelTimer} check sends a heartbeat frame
+ * when nothing was written for an interval and treats the connection as dead once nothing was read
+ * for network.idle.timeout.ms - far sooner than TCP keep-alive notices a vanished peer.
+ * Lanes: acks, heartbeats and {@link #sendControl} messages wait in their own queue, which is written ahead of
+ * queued data at the next frame boundary, and received control messages are handed out before buffered data.
+ * End of stream stays in the data lane since it must follow the last message.
  */
 public class NetworkChannel implements MessageChannel{
 
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte ESCAPE = 0x1B; // starts a control frame
+    private static final byte ESCAPED_NEW_LINE = 'n';
+    private static final byte ESCAPED_CARRIAGE_RETURN = 'r';
+    private static final byte BYTE_DATA = 'b'; // ESC b starts a data line of one byte per char
+    private static final byte CONTROL_END_OF_STREAM = 'E';
+    private static final byte CONTROL_ACK = 'A'; // + messages received so far
+    private static final byte CONTROL_RESUME = 'R'; // + sequence the re-sent messages start from
+    private static final byte CONTROL_HEARTBEAT = 'H';
+    private static final byte CONTROL_MESSAGE = 'M'; // + application control message
+    private static final long ACK_DELAY_NANOS = 2_000_000; // delayed cumulative ack when traffic is sparse
+    private static final long RESUME_RETRY_NANOS = 1_000_000; // reconnect / accept poll interval
+    private static final long DEFAULT_CONNECT_TIMEOUT_MS = 10_000; // client retries for a server still starting
+    private static final int MAX_GATHER = 64; // frames per gathering write
+    private static final long FLUSH_RETRY_NANOS = 20_000; // timer flush retry while a writer holds the lock
+
     private Socket socket;
-    private BufferedReader messageReader;
-    private BufferedWriter messageWriter;
-    private ServerSocket serverSocket;
+    private volatile SocketChannel socketChannel; // replaced when a session resumes
+    private ServerSocketChannel serverSocketChannel;
+    private InetSocketAddress remoteAddress; // client side, target of reconnects
+    private final NetworkEventLoop eventLoop = NetworkEventLoop.shared();
+    private volatile boolean closed;
+    private final ChannelMetrics metrics = new ChannelMetrics();
+
+    // Read side - buffer and line state guarded by readLock
+    private final ReentrantLock readLock = new ReentrantLock();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private byte[] lineBytes = new byte[256];
+    private int lineLength;
+    private volatile boolean endOfStream;
+    private volatile Selector readSelector;
+    private final ConcurrentLinkedDeque<String> inboundMessages = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedDeque<String> inboundControl = new ConcurrentLinkedDeque<>(); // served first
+    private final Queue<CompletableFuture<String>> pendingReceives = new ConcurrentLinkedQueue<>();
+
+    // Write side - socket writes guarded by writeLock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Selector writeSelector;
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Queue<PendingWrite> pendingControl = new ConcurrentLinkedQueue<>(); // written ahead of pendingWrites
+    private final ByteBuffer[] gatherFrames = new ByteBuffer[MAX_GATHER];
+    private final PendingWrite[] gatheredWrites = new PendingWrite[MAX_GATHER];
+    private final boolean[] gatheredControl = new boolean[MAX_GATHER];
+
+    // Adaptive flush coalescing - guarded by writeLock
+    private volatile long maxFlushDelayNanos = TimeUnit.MICROSECONDS.toNanos(ConfigLoader.getFlushMaxDelayMicros());
+    private final ByteBuffer coalesceBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private int coalescedCount;
+    private long coalesceStartNanos;
+    private long lastFlushNanos;
+    private volatile boolean flushUnanswered; // data flushed and nothing read since, cleared by the reader
+    private volatile boolean hasCoalesced;
+    private final Runnable timerFlush = this::flushCoalescedOnTimer;
+
+    // Reliable session - disabled when retained is null
+    private volatile long resumeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(ConfigLoader.getSessionResumeTimeoutMillis());
+    private volatile ByteBuffer[] retained = resumeTimeoutNanos > 0 ? new ByteBuffer[ConfigLoader.getSessionRetransmitSize()] : null;
+    private long sentCount; // sequence of the next data frame, guarded by retained
+    private ByteBuffer lastRetained; // queued frame numbered last, may still be partly written - guarded by writeLock
+    private volatile long peerAckedCount; // our messages the peer confirmed
+    private volatile long receivedCount; // data messages read, written under readLock
+    private volatile long lastAckSent;
+    private long duplicatesToSkip; // re-sent messages we already had, guarded by readLock
+    private final AtomicBoolean ackScheduled = new AtomicBoolean();
+    private final Runnable delayedAck = this::onAckTimer;
+    private final Object resumeLock = new Object();
+    private CompletableFuture<Void> resumeInProgress; // guarded by resumeLock
+
+    // Liveness - heartbeats and idle detection, disabled while heartbeatIntervalNanos is 0
+    private final HashedWheelTimer timer = HashedWheelTimer.shared();
+    private volatile long heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(ConfigLoader.getHeartbeatIntervalMillis());
+    private volatile long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(ConfigLoader.getIdleTimeoutMillis());
+    private volatile boolean readActivity; // set by every read, cleared by the check
+    private long flushesAtLastCheck; // event loop thread only
+    private long silentNanos; // event loop thread only
+    private volatile HashedWheelTimer.Timeout livenessCheck;
+    private final Runnable livenessTask = this::checkLiveness;
+    private final Runnable livenessTick = () -> eventLoop.execute(livenessTask);
+
+    /**
+     * @param sequenced Message queued by sendAsync, numbered and retained once its first byte is written;
+     *                  until then it can still be withdrawn
+     */
+    private record PendingWrite(ByteBuffer frame, CompletableFuture<Void> future, boolean sequenced) {
+
+        private PendingWrite(ByteBuffer frame, CompletableFuture<Void> future) {
+            this(frame, future, false);
+        }
+    }
 
     // Constructor for server (responder)
     public NetworkChannel(String playerId, int port) throws IOException {
-        this.serverSocket = new ServerSocket(port);
-        this.serverSocket.setReuseAddress(true);
-        this.serverSocket.setReceiveBufferSize(8 * 1024);
+        this(playerId, port, 0);
+    }
+
+    /**
+     * Constructor for server (responder) that gives up when no client connects in time.
+     * @param acceptTimeoutMillis How long to wait for the client, 0 = no limit
+     * @throws SocketTimeoutException if no client connected within the timeout
+     */
+    public NetworkChannel(String playerId, int port, long acceptTimeoutMillis) throws IOException {
+        this.serverSocketChannel = ServerSocketChannel.open();
+        ServerSocket serverSocket = serverSocketChannel.socket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.setReceiveBufferSize(8 * 1024);
+        try {
+            serverSocketChannel.bind(new InetSocketAddress(port));
+            if (acceptTimeoutMillis > 0) {
+                serverSocket.setSoTimeout((int) Math.min(acceptTimeoutMillis, Integer.MAX_VALUE));
+                this.socketChannel = serverSocket.accept().getChannel(); // the adaptor honours the timeout
+            } else {
+                this.socketChannel = serverSocketChannel.accept();
+            }
+        } catch (IOException acceptExp) {
+            serverSocketChannel.close();
+            throw acceptExp;
+        }
 
-        this.socket = serverSocket.accept();
-        
         configureSocket();
-        initializeStreams();
+        initializeChannel();
+        scheduleLivenessCheck();
     }
 
     // Constructor for client (initiator)
     public NetworkChannel(String playerId, String host, int port) throws IOException {
+        this(playerId, host, port, DEFAULT_CONNECT_TIMEOUT_MS);
+    }
+
+    /**
+     * Constructor for client (initiator) that keeps retrying while the server is not listening yet.
+     * @param connectTimeoutMillis How long to keep retrying
+     * @throws ConnectException if the server did not listen within the timeout
+     */
+    public NetworkChannel(String playerId, String host, int port, long connectTimeoutMillis) throws IOException {
+        this.remoteAddress = new InetSocketAddress(host, port);
         try {
-            Thread.sleep(1000); // Brief pause to ensure server is ready
-            this.socket = new Socket(host, port);
+            this.socketChannel = SocketChannel.open(new InetSocketAddress(host, port));
         } catch (ConnectException connExp) {
-            retryConncetion(host, port);
-        } catch (InterruptedException interrupExp) {
-            Thread.currentThread().interrupt();
+            retryConncetion(host, port, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeoutMillis));
         }
 
         configureSocket();
-        initializeStreams();
+        initializeChannel();
+        scheduleLivenessCheck();
     }
 
-    // Retry if can't get connection
-    private void retryConncetion(String host, int port) throws IOException {
-        int maxRetries = 5;
-        int retryDelayMs = 2000;
+    // Retry until the deadline, backing off from 50ms so a server that is just starting costs little
+    private void retryConncetion(String host, int port, long deadlineNanos) throws IOException {
+        int retryDelayMs = 50;
         System.out.println("Socket connection failed - Retry for connection...");
-       for (int attempt = 1; attempt <= maxRetries; attempt++) {
+        for (int attempt = 1; ; attempt++) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
             try {
-                Thread.sleep(retryDelayMs);
-                this.socket = new Socket(host, port);
+                Thread.sleep(Math.max(0, Math.min(retryDelayMs, remainingMs)));
+                this.socketChannel = SocketChannel.open(new InetSocketAddress(host, port));
                 System.out.println("Socket connection successfully created - After attempt : "+attempt);
+                return;
             } catch (ConnectException connExp) {
-                System.out.println("Connection attempt " + attempt + " failed, retrying in " + retryDelayMs + "ms...");
-                connExp.printStackTrace();
-                if (attempt == maxRetries) {
+                if (System.nanoTime() - deadlineNanos >= 0) {
                     throw connExp;
                 }
+                retryDelayMs = Math.min(retryDelayMs * 2, 2000);
+                System.out.println("Connection attempt " + attempt + " failed, retrying in " + retryDelayMs + "ms...");
             } catch (InterruptedException interrupExp) {
-                interrupExp.printStackTrace();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while connecting to " + host + ":" + port, interrupExp);
             }
         }
     }
 
     // Configure socket options for low latency
     private void configureSocket() throws SocketException {
+        this.socket = socketChannel.socket();
         socket.setTcpNoDelay(true); // Disable Nagle's algorithm for low latency
         socket.setSendBufferSize(8 * 1024); // Small send buffer
         socket.setReceiveBufferSize(8 * 1024); // Small receive buffer
@@ -80,43 +246,1117 @@ public class NetworkChannel implements MessageChannel{
         socket.setKeepAlive(true); // Enable TCP keep-alive
     }
 
-    private void initializeStreams() throws IOException {
-        this.messageReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        this.messageWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+    private void initializeChannel() throws IOException {
+        socketChannel.configureBlocking(false);
     }
 
     @Override
     public void sendMessage(String message) throws IOException {
         if (message == null) return;
 
+        ByteBuffer frame = encode(message);
+        writeLock.lock();
+        if (!pendingWrites.isEmpty() || !pendingControl.isEmpty()) {
+            // Keep ordering behind async writes still in flight, or frames a resume re-queued while we waited;
+            // queued control frames go out first
+            writeLock.unlock();
+            awaitAsyncSend(sendAsync(message));
+            return;
+        }
+        metrics.recordSent(1);
         try{
-            messageWriter.write(message);
-            messageWriter.newLine();
-            messageWriter.flush();
-        } catch (IOException ioExp) {
-            ioExp.printStackTrace();
+            retain(frame);
+            if (maxFlushDelayNanos > 0 && coalesce(frame)) {
+                return; // held back, goes out with the next flush
+            }
+            flushCoalesced();
+            while (frame.hasRemaining()) {
+                metrics.recordFlush();
+                if (socketChannel.write(frame) == 0) {
+                    awaitWritable();
+                }
+            }
+        } catch (IOException | ClosedSelectorException ioExp) {
+            writeFailed(ioExp);
+        } finally {
+            writeLock.unlock();
+            flushPendingWrites();
+        }
+    }
+
+    /**
+     * Writes the whole burst with gathering writes, one syscall for as many frames as the socket accepts.
+     */
+    @Override
+    public void sendBatch(List<String> messages) throws IOException {
+        ByteBuffer[] frames = new ByteBuffer[messages.size()];
+        int count = 0;
+        for (String message : messages) {
+            if (message != null) frames[count++] = encode(message);
+        }
+        writeLock.lock();
+        if (!pendingWrites.isEmpty() || !pendingControl.isEmpty()) {
+            writeLock.unlock();
+            CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+            for (String message : messages) {
+                last = sendAsync(message);
+            }
+            awaitAsyncSend(last);
+            return;
+        }
+        metrics.recordSent(count);
+        try{
+            retainAll(frames, count);
+            flushCoalesced();
+            int offset = 0;
+            while (offset < count) {
+                offset = writeFrames(frames, offset, count, true);
+                if (offset < count) {
+                    awaitWritable();
+                }
+            }
+        } catch (IOException | ClosedSelectorException ioExp) {
+            writeFailed(ioExp);
+        } finally {
+            writeLock.unlock();
+            flushPendingWrites();
+        }
+    }
+
+    /**
+     * Writes the message ahead of data still queued, at the next frame boundary. Control messages are not
+     * sequenced or acked: they survive a resume only if still queued, never re-sent once written.
+     */
+    @Override
+    public void sendControl(String message) throws IOException {
+        if (message == null) return;
+        if (closed) throw new ClosedChannelException();
+
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        pendingControl.add(new PendingWrite(controlFrame(CONTROL_MESSAGE, message), written));
+        flushPendingWrites();
+        awaitAsyncSend(written);
+    }
+
+    private void awaitAsyncSend(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException sendExp) {
+            if (!closed) sendExp.getCause().printStackTrace();
         }
     }
 
     @Override
     public String receiveMessage(){
+        readLock.lock();
         try{
-            return messageReader.readLine();
+            return awaitInbound() ? pollInbound() : null;
+        } catch (IOException | ClosedSelectorException ioExp) {
+            if (!closed) ioExp.printStackTrace();
+            return null;
+        } finally {
+            readLock.unlock();
+            servePendingReceives();
+        }
+    }
+
+    /**
+     * Hands over every message decoded by the last read, so a burst costs one read syscall.
+     */
+    @Override
+    public int receiveBatch(Collection<? super String> sink, int maxMessages) {
+        if (maxMessages <= 0) return 0;
+        readLock.lock();
+        try{
+            int count = 0;
+            if (awaitInbound()) {
+                String message;
+                while (count < maxMessages && (message = pollInbound()) != null) {
+                    sink.add(message);
+                    count++;
+                }
+            }
+            return count;
+        } catch (IOException | ClosedSelectorException ioExp) {
+            if (!closed) ioExp.printStackTrace();
+            return 0;
+        } finally {
+            readLock.unlock();
+            servePendingReceives();
+        }
+    }
+
+    // Control lane first, strict priority over buffered data
+    private String pollInbound() {
+        String message = inboundControl.poll();
+        return message != null ? message : inboundMessages.poll();
+    }
+
+    // Blocks until a decoded message is buffered, false at end of stream. Must hold readLock.
+    private boolean awaitInbound() throws IOException {
+        while (inboundMessages.isEmpty() && inboundControl.isEmpty()) {
+            if (endOfStream || closed || Thread.currentThread().isInterrupted()) return false;
+            int read;
+            try {
+                read = readAvailable();
+            } catch (IOException ioExp) {
+                if (!canResume()) throw ioExp;
+                read = -1;
+            }
+            if (read < 0) {
+                awaitResume(); // without a session readAvailable already marked end of stream
+            } else if (read == 0) {
+                awaitReadable();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Void> sendAsync(String message) {
+        if (message == null) return CompletableFuture.completedFuture(null);
+
+        if (hasCoalesced) {
+            // Messages held back by sendMessage go first
+            writeLock.lock();
+            try {
+                flushCoalesced();
+            } catch (IOException ioExp) {
+                if (!canResume()) return CompletableFuture.failedFuture(ioExp);
+                connectionLost(); // held back messages are retained, the resumed session re-sends them
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        PendingWrite write = new PendingWrite(encode(message), new CompletableFuture<>(), true);
+        metrics.recordSent(1);
+        pendingWrites.add(write); // numbered when it starts going out, see retainStarted
+        flushPendingWrites();
+        return write.future();
+    }
+
+    @Override
+    public CompletableFuture<String> receiveAsync() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        pendingReceives.add(future);
+        servePendingReceives();
+        return future;
+    }
+
+    // Readiness callbacks, called on the event loop thread
+    private final NetworkEventLoop.SelectionHandler selectionHandler = new NetworkEventLoop.SelectionHandler() {
+        @Override
+        public void onReady(int readyOps) {
+            if ((readyOps & SelectionKey.OP_WRITE) != 0) flushPendingWrites();
+            if ((readyOps & SelectionKey.OP_READ) != 0) servePendingReceives();
+        }
+
+        @Override
+        public void onClosed() {
+            // Either shutdown or a resume replaced the socket, serving again finds out which
+            servePendingReceives();
+            flushPendingWrites();
+        }
+    };
+
+    /**
+     * Completes waiting async receivers from decoded messages, reading more when none are buffered.
+     * Whoever holds readLock does this on release, so a failed tryLock never loses a waiter.
+     */
+    private void servePendingReceives() {
+        while (!pendingReceives.isEmpty()) {
+            if (!readLock.tryLock()) return;
+
+            CompletableFuture<String> receiver = null;
+            String message = null;
+            boolean fromControl = false;
+            boolean waitForData = false;
+            boolean lost = false;
+            try {
+                receiver = pendingReceives.peek();
+                if (receiver == null || receiver.isDone()) {
+                    pendingReceives.remove(receiver); // cancelled or timed out
+                    continue;
+                }
+                if (inboundMessages.isEmpty() && inboundControl.isEmpty() && !endOfStream && !closed) {
+                    lost = readAvailable() < 0 && canResume();
+                }
+                message = inboundControl.poll();
+                fromControl = message != null;
+                if (!fromControl) message = inboundMessages.poll();
+                if (message != null || endOfStream || closed) {
+                    pendingReceives.poll();
+                } else {
+                    waitForData = !lost;
+                }
+            } catch (IOException ioExp) {
+                if (!canResume()) {
+                    if (!closed) ioExp.printStackTrace();
+                    endOfStream = true;
+                    continue;
+                }
+                lost = true;
+            } finally {
+                readLock.unlock();
+            }
+
+            if (lost) {
+                connectionLost(); // serves the waiters again once the session is back
+                return;
+            }
+            if (waitForData) {
+                eventLoop.watch(socketChannel, SelectionKey.OP_READ, selectionHandler);
+                return;
+            }
+            if (!receiver.complete(message) && message != null) {
+                (fromControl ? inboundControl : inboundMessages).addFirst(message);
+            }
+        }
+    }
+
+    /**
+     * Writes queued async frames in order, gathering up to MAX_GATHER frames per syscall and handing the
+     * remainder to the event loop when the socket is full.
+     * Whoever holds writeLock does this on release, so a failed tryLock never strands a write.
+     */
+    private void flushPendingWrites() {
+        while (!pendingWrites.isEmpty() || !pendingControl.isEmpty()) {
+            if (!writeLock.tryLock()) return;
+
+            PendingWrite[] written = null;
+            IOException failure = null;
+            boolean waitForSpace = false;
+            boolean lost = false;
+            try {
+                int count = gatherPendingFrames();
+                if (count == 0) continue;
+                int firstUnwritten = count;
+                try {
+                    if (closed) throw new ClosedChannelException();
+                    firstUnwritten = writeFrames(gatherFrames, 0, count, carriesData(count));
+                    waitForSpace = firstUnwritten < count;
+                } catch (IOException ioExp) {
+                    if (canResume()) {
+                        connectionLost(); // writes stay queued, the resume supersedes them
+                        lost = true;
+                        firstUnwritten = 0;
+                    } else {
+                        failure = ioExp;
+                    }
+                }
+                retainStarted(count);
+                written = new PendingWrite[firstUnwritten];
+                for (int i = 0; i < firstUnwritten; i++) {
+                    written[i] = (gatheredControl[i] ? pendingControl : pendingWrites).poll();
+                }
+                Arrays.fill(gatherFrames, 0, count, null);
+                Arrays.fill(gatheredWrites, 0, count, null);
+            } finally {
+                writeLock.unlock();
+            }
+
+            for (PendingWrite write : written) {
+                if (failure != null) {
+                    write.future().completeExceptionally(failure);
+                } else {
+                    write.future().complete(null);
+                }
+            }
+            if (lost) return;
+            if (waitForSpace) {
+                eventLoop.watch(socketChannel, SelectionKey.OP_WRITE, selectionHandler);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Collects frames into gatherFrames: a data frame already partly written first (frames never interleave),
+     * then every queued control frame, then the oldest pending writes, dropping ones withdrawn before any
+     * byte went out. Must hold writeLock.
+     */
+    private int gatherPendingFrames() {
+        int count = 0;
+        Iterator<PendingWrite> writes = pendingWrites.iterator();
+        PendingWrite head = pendingWrites.peek();
+        PendingWrite controlHead = pendingControl.peek();
+        boolean controlStarted = controlHead != null && controlHead.frame().position() > 0;
+        if (!controlStarted && head != null && head.frame().position() > 0) {
+            gather(count++, writes.next(), false);
+        }
+        for (PendingWrite control : pendingControl) {
+            if (count == MAX_GATHER) return count;
+            gather(count++, control, true);
+        }
+        while (count < MAX_GATHER && writes.hasNext()) {
+            PendingWrite write = writes.next();
+            if (write.future().isDone() && write.frame().position() == 0) {
+                writes.remove(); // not numbered yet, so the session never counts it
+            } else {
+                gather(count++, write, false);
+            }
+        }
+        return count;
+    }
+
+    private void gather(int index, PendingWrite write, boolean control) {
+        gatheredWrites[index] = write;
+        gatheredControl[index] = control;
+        gatherFrames[index] = write.frame();
+    }
+
+    /**
+     * Numbers and retains the queued messages whose first bytes just went out, in wire order. A queued message
+     * gets its sequence only now, so one withdrawn before that never takes a slot the peer's acks would count.
+     * Must hold writeLock.
+     */
+    private void retainStarted(int count) {
+        if (retained == null) return;
+        synchronized (retained) {
+            for (int i = 0; i < count; i++) {
+                PendingWrite write = gatheredWrites[i];
+                if (write.sequenced() && write.frame().position() > 0 && write.frame() != lastRetained) {
+                    retainLocked(write.frame());
+                    lastRetained = write.frame();
+                }
+            }
+        }
+    }
+
+    // Must hold writeLock, reads the lane of each frame gathered by gatherPendingFrames
+    private boolean carriesData(int count) {
+        for (int i = 0; i < count; i++) {
+            if (!gatheredControl[i]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gathering write of frames[offset, end) until done or the socket stops accepting bytes.
+     * Must hold writeLock.
+     * @param data false when only control frames are written, counted apart so acks and heartbeats
+     *             neither inflate the flush metric nor pass for traffic in the liveness check
+     * @return index of the first frame with bytes left, end when everything went out
+     */
+    private int writeFrames(ByteBuffer[] frames, int offset, int end, boolean data) throws IOException {
+        while (offset < end) {
+            long written = socketChannel.write(frames, offset, end - offset);
+            if (data) {
+                metrics.recordFlush();
+            } else {
+                metrics.recordControlFlush();
+            }
+            while (offset < end && !frames[offset].hasRemaining()) {
+                offset++;
+            }
+            if (written == 0) break;
+        }
+        return offset;
+    }
+
+    /**
+     * Holds the frame back while the outbound side is busy: messages are already held back, or our last flush
+     * is still in flight - within the delay budget and not yet answered by any inbound traffic. A reply to a
+     * message just read, or the first send after a pause, is written straight away.
+     * Must hold writeLock.
+     * @return true if the frame was taken into the coalesce buffer
+     */
+    private boolean coalesce(ByteBuffer frame) throws IOException {
+        long now = System.nanoTime();
+        if (coalescedCount == 0 && (!flushUnanswered || now - lastFlushNanos >= maxFlushDelayNanos)) {
+            lastFlushNanos = now; // idle - write straight away
+            flushUnanswered = true;
+            return false;
+        }
+        if (frame.remaining() > coalesceBuffer.remaining()) {
+            flushCoalesced();
+            if (frame.remaining() > coalesceBuffer.capacity()) return false; // too large to hold back
+        }
+        coalesceBuffer.put(frame);
+        if (coalescedCount++ == 0) {
+            coalesceStartNanos = now;
+            hasCoalesced = true;
+            eventLoop.schedule(timerFlush, maxFlushDelayNanos);
+        } else if (now - coalesceStartNanos >= maxFlushDelayNanos) {
+            flushCoalesced();
+        }
+        return true;
+    }
+
+    /**
+     * Writes the coalesce buffer in one syscall, queueing whatever the socket did not take.
+     * Must hold writeLock.
+     */
+    private void flushCoalesced() throws IOException {
+        if (coalescedCount == 0) return;
+
+        coalesceBuffer.flip();
+        try {
+            if (pendingWrites.isEmpty() && pendingControl.isEmpty() && !closed) {
+                metrics.recordFlush();
+                socketChannel.write(coalesceBuffer);
+            }
+            if (coalesceBuffer.hasRemaining()) {
+                ByteBuffer remainder = ByteBuffer.allocate(coalesceBuffer.remaining()).put(coalesceBuffer).flip();
+                pendingWrites.add(new PendingWrite(remainder, new CompletableFuture<>()));
+            }
+        } finally {
+            metrics.recordCoalescedFlush(coalescedCount);
+            coalesceBuffer.clear();
+            coalescedCount = 0;
+            hasCoalesced = false;
+            lastFlushNanos = System.nanoTime();
+            flushUnanswered = true;
+        }
+    }
+
+    // Called on the event loop thread when the delay budget of the oldest held back message is spent
+    private void flushCoalescedOnTimer() {
+        if (!hasCoalesced) return;
+        if (!writeLock.tryLock()) {
+            eventLoop.schedule(timerFlush, FLUSH_RETRY_NANOS);
+            return;
+        }
+        try {
+            flushCoalesced();
         } catch (IOException ioExp) {
+            if (!closed) ioExp.printStackTrace();
+        } finally {
+            writeLock.unlock();
+        }
+        flushPendingWrites();
+    }
+
+    /**
+     * Sets the heartbeat interval and how long without any inbound traffic the connection is considered dead.
+     * A zero interval stops the checks.
+     * @param idleTimeoutMillis 0 for three heartbeat intervals
+     */
+    public void setLiveness(long heartbeatIntervalMillis, long idleTimeoutMillis) {
+        this.heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        eventLoop.execute(() -> {
+            // Reschedule with the new interval, unless the check already fired and will pick it up itself
+            HashedWheelTimer.Timeout check = livenessCheck;
+            if (check == null || check.cancel()) {
+                silentNanos = 0;
+                scheduleLivenessCheck();
+            }
+        });
+    }
+
+    private void scheduleLivenessCheck() {
+        long interval = heartbeatIntervalNanos;
+        if (interval > 0 && !closed) {
+            livenessCheck = timer.newTimeout(livenessTick, interval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs on the event loop every heartbeat interval: heartbeat if we were silent, give up on the
+     * connection if the peer was.
+     */
+    private void checkLiveness() {
+        long interval = heartbeatIntervalNanos;
+        if (closed || endOfStream || interval == 0) {
+            livenessCheck = null; // stopped, setLiveness may start it again
+            return;
+        }
+
+        if (metrics.getFlushes() == flushesAtLastCheck) {
+            queueControl(controlFrame(CONTROL_HEARTBEAT)); // keeps the peer's idle check quiet
+        }
+        flushesAtLastCheck = metrics.getFlushes();
+
+        if (!readActivity) {
+            readPendingTraffic();
+        }
+        if (readActivity) {
+            readActivity = false;
+            silentNanos = 0;
+        } else {
+            silentNanos += interval;
+            long idleTimeout = idleTimeoutNanos > 0 ? idleTimeoutNanos : 3 * interval;
+            if (silentNanos >= idleTimeout) {
+                silentNanos = 0;
+                connectionIdle(idleTimeout);
+            }
+        }
+        scheduleLivenessCheck();
+    }
+
+    /**
+     * Nobody may be reading an idle channel, so the check reads whatever arrived itself; decoded messages
+     * wait in inboundMessages. A failed tryLock means a reader is active and would have seen the traffic.
+     */
+    private void readPendingTraffic() {
+        if (!readLock.tryLock()) return;
+        boolean lost = false;
+        try {
+            lost = readAvailable() < 0 && canResume();
+        } catch (IOException ioExp) {
+            if (!canResume()) {
+                if (!closed) ioExp.printStackTrace();
+                endOfStream = true;
+            }
+            lost = true;
+        } finally {
+            readLock.unlock();
+        }
+        if (lost) {
+            connectionLost();
+        }
+        servePendingReceives();
+    }
+
+    // Peer went quiet for longer than the idle timeout - resume the session or end the stream
+    private void connectionIdle(long idleTimeout) {
+        System.err.println("No traffic from peer for " + TimeUnit.NANOSECONDS.toMillis(idleTimeout)
+                + "ms, connection considered dead");
+        if (canResume()) {
+            connectionLost();
+            return;
+        }
+        endOfStream = true;
+        closeQuietly(socketChannel);
+        if (readSelector != null) readSelector.wakeup();
+        if (writeSelector != null) writeSelector.wakeup();
+        servePendingReceives();
+        flushPendingWrites();
+    }
+
+    /**
+     * Turns the reliable session on (resume timeout > 0) or off, overriding network.session.*.
+     * Both ends must make the same choice before the first message is sent.
+     */
+    public void setSession(long resumeTimeoutMillis, int retransmitSize) {
+        this.resumeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(resumeTimeoutMillis);
+        this.retained = resumeTimeoutMillis > 0 ? new ByteBuffer[retransmitSize] : null;
+    }
+
+    /**
+     * Sets the extra delay a message may wait to be coalesced under load, 0 flushes every message.
+     */
+    public void setMaxFlushDelayMicros(long maxFlushDelayMicros) {
+        this.maxFlushDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxFlushDelayMicros);
+    }
+
+    public ChannelMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Reads whatever the socket has without blocking and decodes complete lines into inboundMessages.
+     * Must hold readLock.
+     * @return bytes read, or -1 at end of stream
+     */
+    private int readAvailable() throws IOException {
+        int read = socketChannel.read(readBuffer);
+        if (read > 0) {
+            readActivity = true;
+            flushUnanswered = false; // the peer is keeping up, the next send need not wait
+        } else if (read < 0) {
+            if (canResume()) return read; // dropped without end of stream, the partial line is re-sent
+            endOfStream = true;
+            if (lineLength > 0) inboundMessages.add(decodeLine()); // unterminated last line
+            return read;
+        }
+
+        byte[] bytes = readBuffer.array();
+        int start = 0;
+        int limit = readBuffer.position();
+        boolean delivered = false;
+        for (int i = 0; i < limit; i++) {
+            if (bytes[i] == NEW_LINE) {
+                appendLine(bytes, start, i - start);
+                if (isControlLine()) {
+                    handleControl();
+                } else if (duplicatesToSkip > 0) {
+                    duplicatesToSkip--; // re-sent after a resume, delivered before the drop
+                    lineLength = 0;
+                } else {
+                    inboundMessages.add(decodeLine());
+                    metrics.recordReceived();
+                    receivedCount++;
+                    delivered = true;
+                }
+                start = i + 1;
+            }
+        }
+        appendLine(bytes, start, limit - start);
+        readBuffer.clear();
+        if (delivered && retained != null) {
+            acknowledge();
+        }
+        return read;
+    }
+
+    private void appendLine(byte[] bytes, int offset, int length) {
+        if (lineLength + length > lineBytes.length) {
+            lineBytes = Arrays.copyOf(lineBytes, Math.max(lineBytes.length * 2, lineLength + length));
+        }
+        System.arraycopy(bytes, offset, lineBytes, lineLength, length);
+        lineLength += length;
+    }
+
+    private String decodeLine() {
+        int length = lineLength;
+        if (length > 0 && lineBytes[length - 1] == CARRIAGE_RETURN) length--; // raw CR only from a text peer
+        int offset = 0;
+        boolean byteData = false;
+        if (length > 1 && lineBytes[0] == ESCAPE) { // escaped data line
+            byteData = lineBytes[1] == BYTE_DATA;
+            offset = 2;
+            length = unescape(offset, length);
+        }
+        lineLength = 0;
+        return new String(lineBytes, offset, length - offset,
+                byteData ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    // ESC + M + escaped payload, not counted or acked. Must hold readLock.
+    private String decodeControlMessage() {
+        int length = lineLength;
+        if (length > 2 && lineBytes[length - 1] == CARRIAGE_RETURN) length--;
+        length = unescape(2, length);
+        lineLength = 0;
+        return new String(lineBytes, 2, length - 2, StandardCharsets.UTF_8);
+    }
+
+    // Undoes escapeInto in place within lineBytes. Must hold readLock.
+    // @return end of the unescaped bytes
+    private int unescape(int from, int end) {
+        int write = from;
+        for (int read = from; read < end; read++) {
+            byte value = lineBytes[read];
+            if (value == ESCAPE && read + 1 < end) {
+                value = lineBytes[++read];
+                if (value == ESCAPED_NEW_LINE) {
+                    value = NEW_LINE;
+                } else if (value == ESCAPED_CARRIAGE_RETURN) {
+                    value = CARRIAGE_RETURN;
+                }
+            }
+            lineBytes[write++] = value;
+        }
+        return write;
+    }
+
+    // ESC + code is a control frame, ESC + ESC and ESC + b are escaped data. Must hold readLock.
+    private boolean isControlLine() {
+        return lineLength > 1 && lineBytes[0] == ESCAPE && lineBytes[1] != ESCAPE && lineBytes[1] != BYTE_DATA;
+    }
+
+    // Must hold readLock
+    private void handleControl() {
+        byte code = lineBytes[1];
+        if (code == CONTROL_MESSAGE) {
+            inboundControl.add(decodeControlMessage());
+            return;
+        }
+        long value = parseControlValue();
+        lineLength = 0;
+        switch (code) {
+            case CONTROL_END_OF_STREAM -> endOfStream = true; // peer finished, nothing follows
+            case CONTROL_ACK -> {
+                if (value > peerAckedCount) peerAckedCount = value;
+            }
+            case CONTROL_RESUME -> skipResent(value);
+            case CONTROL_HEARTBEAT -> { } // only there to count as traffic
+            default -> { } // unknown control frames are ignored
+        }
+    }
+
+    // Decimal argument after the control code, -1 if there is none. Must hold readLock.
+    private long parseControlValue() {
+        long value = -1;
+        for (int i = 2; i < lineLength && lineBytes[i] >= '0' && lineBytes[i] <= '9'; i++) {
+            value = (value < 0 ? 0 : value * 10) + (lineBytes[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * The peer re-sends from its last ack after a resume; skip the ones already delivered.
+     * Must hold readLock.
+     */
+    private void skipResent(long resentFrom) {
+        long duplicates = receivedCount - resentFrom;
+        if (resentFrom < 0 || duplicates < 0) {
+            System.err.println("Cannot resume session: peer re-sends from " + resentFrom
+                    + " but only " + receivedCount + " messages were received");
+            endOfStream = true;
+            return;
+        }
+        duplicatesToSkip = duplicates;
+    }
+
+    private static ByteBuffer encode(String message) {
+        boolean byteData = isByteData(message);
+        byte[] payload = message.getBytes(byteData ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        int specials = countSpecials(payload);
+        if (specials == 0 && !byteData) {
+            return ByteBuffer.allocate(payload.length + 1).put(payload).put(NEW_LINE).flip();
+        }
+        ByteBuffer frame = ByteBuffer.allocate(payload.length + specials + 3);
+        frame.put(ESCAPE).put(byteData ? BYTE_DATA : ESCAPE);
+        escapeInto(frame, payload);
+        return frame.put(NEW_LINE).flip();
+    }
+
+    // Every char fits in a byte and some are above ASCII, where UTF-8 would take two bytes each
+    private static boolean isByteData(String message) {
+        boolean aboveAscii = false;
+        for (int i = 0, length = message.length(); i < length; i++) {
+            char value = message.charAt(i);
+            if (value > 0xFF) return false;
+            if (value > 0x7F) aboveAscii = true;
+        }
+        return aboveAscii;
+    }
+
+    private static ByteBuffer controlFrame(byte code, String message) {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(payload.length + countSpecials(payload) + 3);
+        frame.put(ESCAPE).put(code);
+        escapeInto(frame, payload);
+        return frame.put(NEW_LINE).flip();
+    }
+
+    // Bytes that would end the line, be stripped from it or be taken for a control frame
+    private static int countSpecials(byte[] payload) {
+        int specials = 0;
+        for (byte value : payload) {
+            if (value == NEW_LINE || value == CARRIAGE_RETURN || value == ESCAPE) specials++;
+        }
+        return specials;
+    }
+
+    private static void escapeInto(ByteBuffer frame, byte[] payload) {
+        for (byte value : payload) {
+            switch (value) {
+                case NEW_LINE -> frame.put(ESCAPE).put(ESCAPED_NEW_LINE);
+                case CARRIAGE_RETURN -> frame.put(ESCAPE).put(ESCAPED_CARRIAGE_RETURN);
+                case ESCAPE -> frame.put(ESCAPE).put(ESCAPE);
+                default -> frame.put(value);
+            }
+        }
+    }
+
+    private static ByteBuffer controlFrame(byte code) {
+        return ByteBuffer.wrap(new byte[] {ESCAPE, code, NEW_LINE});
+    }
+
+    private static ByteBuffer controlFrame(byte code, long value) {
+        byte[] digits = Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer frame = ByteBuffer.allocate(digits.length + 3);
+        frame.put(ESCAPE).put(code).put(digits).put(NEW_LINE).flip();
+        return frame;
+    }
+
+    // Control lane, written ahead of queued data at the next frame boundary by whoever flushes next
+    private void queueControl(ByteBuffer frame) {
+        pendingControl.add(new PendingWrite(frame, new CompletableFuture<>()));
+        flushPendingWrites();
+    }
+
+    /**
+     * Keeps a sent frame until the peer acks it. Must hold writeLock.
+     */
+    private void retain(ByteBuffer frame) {
+        if (retained == null) return;
+        synchronized (retained) {
+            retainLocked(frame);
+        }
+    }
+
+    private void retainAll(ByteBuffer[] frames, int count) {
+        if (retained == null) return;
+        synchronized (retained) {
+            for (int i = 0; i < count; i++) {
+                retainLocked(frames[i]);
+            }
+        }
+    }
+
+    // Must hold the retained monitor. The oldest frame is overwritten once more than the
+    // ring is unacked, a resume then fails instead of silently skipping messages.
+    private void retainLocked(ByteBuffer frame) {
+        retained[(int) (sentCount++ % retained.length)] = frame;
+    }
+
+    /**
+     * Cumulative ack: right away once a quarter of the peer's retransmit ring is unacked,
+     * otherwise after a short delay so a ping-pong exchange does not double its writes.
+     */
+    private void acknowledge() {
+        if (receivedCount - lastAckSent >= Math.max(1, retained.length / 4)) {
+            sendAck();
+        } else if (ackScheduled.compareAndSet(false, true)) {
+            eventLoop.schedule(delayedAck, ACK_DELAY_NANOS);
+        }
+    }
+
+    private void onAckTimer() {
+        ackScheduled.set(false);
+        sendAck();
+    }
+
+    private void sendAck() {
+        long received = receivedCount;
+        if (received <= lastAckSent || closed) return;
+        lastAckSent = received;
+        queueControl(controlFrame(CONTROL_ACK, received));
+    }
+
+    private boolean canResume() {
+        return retained != null && !closed && !endOfStream;
+    }
+
+    // Session keeps the frames for the resume, otherwise the failure is only reported. Must hold writeLock.
+    private void writeFailed(Exception ioExp) {
+        if (closed) return;
+        if (canResume()) {
+            connectionLost();
+        } else {
             ioExp.printStackTrace();
-            return null;
         }
     }
 
+    /**
+     * Starts resuming the session unless a resume is already running.
+     * @return Future completed once the session is back or given up
+     */
+    private CompletableFuture<Void> connectionLost() {
+        synchronized (resumeLock) {
+            if (resumeInProgress == null) {
+                resumeInProgress = new CompletableFuture<>();
+                Thread.startVirtualThread(this::resumeSession);
+            }
+            return resumeInProgress;
+        }
+    }
+
+    // Lets the resume take readLock while this reader waits for it. Must hold readLock exactly once.
+    private void awaitResume() {
+        if (!canResume()) return;
+        CompletableFuture<Void> resume = connectionLost();
+        readLock.unlock();
+        try {
+            resume.join();
+        } finally {
+            readLock.lock();
+        }
+    }
+
+    /**
+     * Reconnects within network.session.resume.timeout.ms and re-queues every unacked message behind
+     * a resume frame telling the peer where the re-sent messages start. Gives up with end of stream.
+     */
+    private void resumeSession() {
+        long startNanos = System.nanoTime();
+        boolean resumed = false;
+        int resent = 0;
+        List<PendingWrite> superseded = new ArrayList<>();
+
+        // Break the old connection so blocked readers and writers let go of their locks
+        closeQuietly(socketChannel);
+        if (readSelector != null) readSelector.wakeup();
+        if (writeSelector != null) writeSelector.wakeup();
+
+        readLock.lock();
+        writeLock.lock();
+        try {
+            SocketChannel reconnected = reconnect(startNanos + resumeTimeoutNanos);
+            if (reconnected != null && closed) {
+                closeQuietly(reconnected); // shut down while reconnecting
+            } else if (reconnected != null) {
+                socketChannel = reconnected;
+                configureSocket();
+                initializeChannel();
+                closeQuietly(readSelector); // registered with the old socket, reopened on demand
+                closeQuietly(writeSelector);
+                readSelector = null;
+                writeSelector = null;
+                readBuffer.clear();
+                lineLength = 0;
+                discardCoalesced();
+                resent = requeueUnacked(superseded);
+                resumed = resent >= 0;
+            }
+        } catch (IOException ioExp) {
+            if (!closed) ioExp.printStackTrace();
+        } finally {
+            if (!resumed) endOfStream = true;
+            writeLock.unlock();
+            readLock.unlock();
+        }
+
+        if (resumed) {
+            metrics.recordResume();
+            metrics.recordRetransmit(resent);
+            System.out.println("Session resumed after " + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos)
+                    + "us, re-sending " + resent + " messages");
+        }
+        for (PendingWrite write : superseded) {
+            write.future().complete(null); // covered by the re-sent frames
+        }
+        CompletableFuture<Void> done;
+        synchronized (resumeLock) {
+            done = resumeInProgress;
+            resumeInProgress = null;
+        }
+        done.complete(null);
+        flushPendingWrites();
+        servePendingReceives();
+    }
+
+    // Client connects again, server accepts the returning client. Must hold readLock and writeLock.
+    private SocketChannel reconnect(long deadlineNanos) throws IOException {
+        while (!closed && System.nanoTime() - deadlineNanos < 0) {
+            if (remoteAddress != null) {
+                try {
+                    return SocketChannel.open(remoteAddress);
+                } catch (ConnectException connExp) {
+                    // peer not listening (yet)
+                }
+            } else {
+                serverSocketChannel.configureBlocking(false);
+                SocketChannel accepted = serverSocketChannel.accept();
+                if (accepted != null) return accepted;
+            }
+            LockSupport.parkNanos(RESUME_RETRY_NANOS);
+        }
+        return null;
+    }
+
+    /**
+     * Replaces queued writes with a resume frame followed by every unacked data frame in order, then the
+     * async messages that had not started going out.
+     * Queued control messages follow the resume frame from the start, acks and heartbeats are dropped.
+     * Must hold writeLock.
+     * @return messages re-sent, -1 if some of them are no longer retained
+     */
+    private int requeueUnacked(List<PendingWrite> superseded) {
+        synchronized (retained) {
+            long resendFrom = peerAckedCount;
+            if (sentCount - resendFrom > retained.length) {
+                System.err.println("Cannot resume session: " + (sentCount - resendFrom)
+                        + " unacked messages exceed the retransmit buffer of " + retained.length);
+                return -1;
+            }
+            PendingWrite write;
+            List<PendingWrite> unsent = new ArrayList<>();
+            while ((write = pendingWrites.poll()) != null) {
+                if (write.sequenced() && write.frame().position() == 0) {
+                    unsent.add(write); // never numbered, goes out after the re-sent messages
+                } else {
+                    superseded.add(write); // retained or not data, the re-sent frames cover it
+                }
+            }
+            List<PendingWrite> controls = new ArrayList<>();
+            while ((write = pendingControl.poll()) != null) {
+                if (write.frame().get(1) == CONTROL_MESSAGE) {
+                    controls.add(new PendingWrite(write.frame().position(0), write.future()));
+                } else {
+                    superseded.add(write); // the new connection starts with fresh acks
+                }
+            }
+            pendingControl.add(new PendingWrite(controlFrame(CONTROL_RESUME, resendFrom), new CompletableFuture<>()));
+            pendingControl.addAll(controls);
+            for (long sequence = resendFrom; sequence < sentCount; sequence++) {
+                ByteBuffer frame = retained[(int) (sequence % retained.length)].duplicate().position(0);
+                pendingWrites.add(new PendingWrite(frame, new CompletableFuture<>()));
+            }
+            pendingWrites.addAll(unsent);
+            return (int) (sentCount - resendFrom);
+        }
+    }
+
+    // Messages held back are retained, the resume re-sends them. Must hold writeLock.
+    private void discardCoalesced() {
+        coalesceBuffer.clear();
+        coalescedCount = 0;
+        hasCoalesced = false;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ioExp) {
+            // already broken, nothing left to release
+        }
+    }
+
+    /**
+     * Simulates a network failure: drops the connection without an end-of-stream frame.
+     */
+    void dropConnection() throws IOException {
+        socketChannel.close();
+    }
+
+    // Blocks the calling thread until the socket has data, must hold readLock
+    private void awaitReadable() throws IOException {
+        Selector selector = readSelector;
+        if (selector == null) {
+            selector = Selector.open();
+            readSelector = selector; // published before the closed check so shutdown can wake us
+            socketChannel.register(selector, SelectionKey.OP_READ);
+        }
+        awaitSelector(selector);
+    }
+
+    // Blocks the calling thread until the socket has send buffer space, must hold writeLock
+    private void awaitWritable() throws IOException {
+        Selector selector = writeSelector;
+        if (selector == null) {
+            selector = Selector.open();
+            writeSelector = selector; // published before the closed check so shutdown can wake us
+            socketChannel.register(selector, SelectionKey.OP_WRITE);
+        }
+        awaitSelector(selector);
+    }
+
+    private void awaitSelector(Selector selector) throws IOException {
+        if (closed) return;
+        selector.select();
+        selector.selectedKeys().clear();
+    }
+
+    /**
+     * Tells the peer the conversation is over with an end-of-stream frame, then closes the socket.
+     * Closing the private selectors releases this channel's blocked readers and writers at once.
+     */
     @Override
     public void shutdown() {
+        if (!closed && socketChannel != null && socketChannel.isOpen()) {
+            if (hasCoalesced && writeLock.tryLock()) {
+                try {
+                    flushCoalesced();
+                } catch (IOException ioExp) {
+                    ioExp.printStackTrace();
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+            // Data lane, best effort behind queued writes, never waits
+            pendingWrites.add(new PendingWrite(controlFrame(CONTROL_END_OF_STREAM), new CompletableFuture<>()));
+            flushPendingWrites();
+        }
+        closed = true;
+        HashedWheelTimer.Timeout check = livenessCheck;
+        if (check != null) check.cancel();
         try {
-            if (messageReader != null) messageReader.close();
-            if (messageWriter != null) messageWriter.close();
-            if (socket != null && !socket.isClosed()) socket.close();
-            if (serverSocket != null && !serverSocket.isClosed()) serverSocket.close();
+            if (socketChannel != null && socketChannel.isOpen()) socketChannel.close();
+            if (serverSocketChannel != null && serverSocketChannel.isOpen()) serverSocketChannel.close();
+            // Closing the selectors wakes up any thread blocked in receiveMessage/sendMessage
+            if (readSelector != null) readSelector.close();
+            if (writeSelector != null) writeSelector.close();
         } catch (IOException ioExp) {
             ioExp.printStackTrace();
         }
+        servePendingReceives();
+        flushPendingWrites();
     }
 }
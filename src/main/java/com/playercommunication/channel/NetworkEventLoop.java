@@ -0,0 +1,167 @@
+package com.playercommunication.channel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.Selector;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Selector thread shared by the socket based channels for asynchronous reads and writes.
+ * Interest is one-shot: a channel asks for readiness only while async work is pending,
+ * so idle sockets cost nothing and one thread serves many conversations.
+ * Also runs delayed tasks such as coalesced flushes, with microsecond rather than select() millisecond precision.
+ */
+final class NetworkEventLoop implements Runnable {
+
+    private static volatile NetworkEventLoop shared;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<ScheduledTask> timers =
+            new PriorityQueue<>(Comparator.comparingLong(ScheduledTask::deadlineNanos)); // loop thread only
+
+    private record ScheduledTask(long deadlineNanos, Runnable task) {}
+
+    /**
+     * Readiness callback of a watched channel, always invoked on the loop thread.
+     */
+    interface SelectionHandler {
+
+        void onReady(int readyOps);
+
+        void onClosed();
+    }
+
+    private NetworkEventLoop() throws IOException {
+        this.selector = Selector.open();
+        Thread thread = new Thread(this, "network-event-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static NetworkEventLoop shared() {
+        NetworkEventLoop loop = shared;
+        if (loop == null) {
+            synchronized (NetworkEventLoop.class) {
+                loop = shared;
+                if (loop == null) {
+                    try {
+                        loop = new NetworkEventLoop();
+                    } catch (IOException ioExp) {
+                        throw new UncheckedIOException(ioExp);
+                    }
+                    shared = loop;
+                }
+            }
+        }
+        return loop;
+    }
+
+    /**
+     * Runs the task on the loop thread.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Runs the task on the loop thread once the delay has passed.
+     */
+    void schedule(Runnable task, long delayNanos) {
+        long deadlineNanos = System.nanoTime() + delayNanos;
+        execute(() -> timers.add(new ScheduledTask(deadlineNanos, task)));
+    }
+
+    /**
+     * Asks for a single readiness callback on the given operations.
+     */
+    void watch(SelectableChannel channel, int ops, SelectionHandler handler) {
+        execute(() -> {
+            try {
+                SelectionKey key = channel.keyFor(selector);
+                if (key == null) {
+                    channel.register(selector, ops, handler);
+                } else {
+                    key.interestOps(key.interestOps() | ops);
+                }
+            } catch (ClosedChannelException | CancelledKeyException closedExp) {
+                handler.onClosed();
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                awaitEvents();
+                runTasks();
+                runExpiredTimers();
+
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    dispatch(key);
+                }
+            } catch (IOException | RuntimeException loopExp) {
+                loopExp.printStackTrace(); // keep serving the other channels
+            }
+        }
+    }
+
+    private void awaitEvents() throws IOException {
+        ScheduledTask next = timers.peek();
+        if (next == null) {
+            selector.select();
+            return;
+        }
+        long remainingNanos = next.deadlineNanos() - System.nanoTime();
+        if (remainingNanos >= 1_000_000) {
+            selector.select(remainingNanos / 1_000_000);
+            return;
+        }
+        // select() only has millisecond resolution: spin on selectNow for sub-millisecond deadlines, so new tasks
+        // and readiness events are still seen at once, unlike in a park that only the deadline ends
+        while (selector.selectNow() == 0 && tasks.isEmpty() && next.deadlineNanos() - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void runExpiredTimers() {
+        long now = System.nanoTime();
+        ScheduledTask next;
+        while ((next = timers.peek()) != null && next.deadlineNanos() - now <= 0) {
+            timers.poll().task().run();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void dispatch(SelectionKey key) {
+        SelectionHandler handler = (SelectionHandler) key.attachment();
+        try {
+            int ready = key.readyOps();
+            key.interestOps(key.interestOps() & ~ready);
+            handler.onReady(ready);
+        } catch (CancelledKeyException cancelledExp) {
+            handler.onClosed();
+        }
+    }
+
+}
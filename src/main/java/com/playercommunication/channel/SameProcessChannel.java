@@ -1,13 +1,34 @@
 package com.playercommunication.channel;
 
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Tharmaraj Marimuthu
  * SameProcessChannel for inter-thread communication within the same JVM process.
  * Uses BlockingQueue for thread-safe message passing with bounded buffers.
  * Implements sendMessage with timeout to avoid indefinite blocking.
+ * receiveBatch drains a burst with a single drainTo, i.e. one lock acquisition.
+ * Async operations park a future instead of a thread; the peer channel completes it
+ * when it moves a message through the shared queues (see {@link #connect}).
+ * With a spill capacity, sends that find the outgoing queue full go to an off-heap {@link SpillBuffer}
+ * instead of waiting; the peer moves them back into the queue in order as it takes messages.
+ * Linked channels also have a control lane next to the data queue: {@link #sendControl} and shutdown never wait
+ * for data queue space, and every receive looks at the control lane first (strict priority). End of stream travels
+ * on the control lane but only takes effect once the data sent before it has been drained, so the peer's blocked
+ * reader still returns null right after the last message of the conversation.
  */
 public class SameProcessChannel implements MessageChannel {
 
@@ -15,19 +36,88 @@ public class SameProcessChannel implements MessageChannel {
     private final BlockingQueue<String> outgoingQueue;
 
     private static final int SEND_TIMEOUT_MS = 1000; // 1 second timeout for sending messages
+    private static final long MAX_EOS_RETRY_MS = 100; // longest pause between end of stream retries
+    private static final String END_OF_STREAM = new String(); // identity marker, never equals() a message
+    private static final String WAKE = new String(); // identity marker releasing a reader blocked on the data queue
+
+    private volatile boolean closed;
+    private volatile boolean endOfStream; // no more messages will be received
+    private volatile boolean peerFinished; // peer's end of stream arrived on the control lane, data may still be queued
+    private final AtomicInteger blockedReaders = new AtomicInteger(); // readers parked in incomingQueue.take()
+    private final AtomicInteger pendingWakes = new AtomicInteger(); // WAKE markers offered and not yet taken
+
+    // Control lane filled by the linked peer, always read before the data queue
+    private final Queue<String> controlIncoming = new ConcurrentLinkedQueue<>();
+    private final List<String> drained = new ArrayList<>(); // receiveBatch scratch - guarded by itself
+
+    // Async waiters - each deque is guarded by its own monitor
+    private final Deque<CompletableFuture<String>> pendingReceives = new ArrayDeque<>();
+    private final Deque<PendingSend> pendingSends = new ArrayDeque<>();
+    private final Deque<String> undelivered = new ArrayDeque<>(); // taken for a receiver that gave up meanwhile
+    private volatile boolean hasPendingReceives;
+    private volatile boolean hasPendingSends;
+    private volatile boolean hasUndelivered;
+
+    // Overflow tier for the outgoing queue, null when spilling is disabled - guarded by itself
+    private final SpillBuffer spill;
+    private volatile boolean spilling; // spill holds messages, later sends must queue behind them
+
+    private volatile SameProcessChannel peer;
+
+    private record PendingSend(String message, CompletableFuture<Void> future) {}
 
     public SameProcessChannel(BlockingQueue<String> incomingQueue,
                               BlockingQueue<String> outgoingQueue) {
+        this(incomingQueue, outgoingQueue, 0);
+    }
+
+    /**
+     * Spilling only takes effect once the channel is linked to its peer through {@link #connect},
+     * since the peer is the one draining the spill back into the queue.
+     * @param spillCapacityBytes Off-heap bytes for messages that overflow the outgoing queue, 0 disables spilling
+     */
+    public SameProcessChannel(BlockingQueue<String> incomingQueue,
+                              BlockingQueue<String> outgoingQueue,
+                              int spillCapacityBytes) {
         this.incomingQueue = incomingQueue;
         this.outgoingQueue = outgoingQueue;
+        this.spill = spillCapacityBytes > 0 ? new SpillBuffer(spillCapacityBytes) : null;
+    }
+
+    /**
+     * Links two channels built over the same pair of queues so each can wake the other's async waiters.
+     * Async operations need the link, on an unlinked channel they fail at once with IllegalStateException.
+     * @param first Channel reading the queue the second one writes to
+     * @param second Channel reading the queue the first one writes to
+     */
+    public static void connect(SameProcessChannel first, SameProcessChannel second) {
+        if (first.incomingQueue != second.outgoingQueue || first.outgoingQueue != second.incomingQueue) {
+            throw new IllegalArgumentException("Channels must share crossed incoming/outgoing queues");
+        }
+        first.peer = second;
+        second.peer = first;
     }
 
     @Override
     public void sendMessage(String message) {
-        if (message == null) return;
+        if (message == null || closed) return;
 
         try{
-            boolean sent = outgoingQueue.offer(message, SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            boolean sent;
+            if (hasPendingSends) {
+                // Queue behind the async sends already waiting so ordering is kept
+                sent = awaitSend(sendAsync(message));
+            } else if (offerOutgoing(message)) {
+                sent = true;
+                notifyPeerReceives();
+            } else if (peer != null) {
+                // Full (queue and spill) - park as an async send so the peer hands over the space
+                // and the shared timer wheel, not a timed wait, enforces the deadline
+                sent = awaitSend(sendAsync(message));
+            } else {
+                sent = outgoingQueue.offer(message, SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                notifyPeerReceives();
+            }
             if (!sent) {
                 System.err.println("Failed to send message within timeout: " + message);
             }
@@ -37,10 +127,37 @@ public class SameProcessChannel implements MessageChannel {
         }
     }
 
+    private boolean awaitSend(CompletableFuture<Void> future) throws InterruptedException {
+        try {
+            HashedWheelTimer.shared().orTimeout(future, SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS).get();
+            return true;
+        } catch (ExecutionException | CancellationException sendExp) {
+            return false; // timed out - the send is done, so it was withdrawn
+        } catch (InterruptedException interrupExp) {
+            future.cancel(false); // withdraw rather than deliver behind the caller's back
+            throw interrupExp;
+        }
+    }
+
     @Override
     public String receiveMessage() {
         try {
-            return incomingQueue.take();
+            while (!endOfStream) {
+                String message = pollNext();
+                if (message == null && !endOfStream) {
+                    if (peerFinished) {
+                        releasePeerSends(); // the closed peer still holds spilled or async sends
+                        continue;
+                    }
+                    message = takeIncoming();
+                    if (message == null) continue; // woken for the control lane or end of stream
+                }
+                if (message != null) {
+                    releasePeerSends();
+                }
+                return message;
+            }
+            return null;
         } catch (InterruptedException interrupExp) {
             interrupExp.printStackTrace();
             Thread.currentThread().interrupt();
@@ -48,9 +165,444 @@ public class SameProcessChannel implements MessageChannel {
         }
     }
 
+    /**
+     * Blocks on the data queue. Registers as a parked reader first and then looks once more, so whoever
+     * makes something available either sees the registration and wakes us or is seen by the second look.
+     * @return next message, null when woken without one
+     */
+    private String takeIncoming() throws InterruptedException {
+        blockedReaders.incrementAndGet();
+        try {
+            String message = pollNext();
+            if (message != null || endOfStream) return message;
+            message = incomingQueue.take();
+            if (message == END_OF_STREAM) {
+                endOfStream = true; // unlinked peer finished, the other parked readers are woken below
+                return null;
+            }
+            if (message != WAKE) return message;
+            pendingWakes.decrementAndGet();
+            return null;
+        } finally {
+            blockedReaders.decrementAndGet();
+            if (endOfStream) wakeBlockedReader();
+        }
+    }
+
+    /**
+     * Hands a WAKE marker to a reader parked on the data queue, unless every parked reader already has one
+     * coming: such a reader looks at the control lane again after taking it. Without a parked reader nothing
+     * is written, so no marker takes the peer's send capacity; once the stream ended, markers nobody is left
+     * to take are removed.
+     */
+    private void wakeBlockedReader() {
+        int wakes;
+        while ((wakes = pendingWakes.get()) < blockedReaders.get()) {
+            if (!pendingWakes.compareAndSet(wakes, wakes + 1)) continue;
+            if (!incomingQueue.offer(WAKE)) {
+                pendingWakes.decrementAndGet(); // no room means the reader is not blocked on the queue anyway
+            }
+            return;
+        }
+        if (blockedReaders.get() == 0 && endOfStream) {
+            incomingQueue.removeIf(message -> {
+                if (message != WAKE) return false;
+                pendingWakes.decrementAndGet();
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Sends on the control lane of a linked channel: never waits for data queue space and is received
+     * ahead of any queued data. Unlinked channels have no second lane and send it as data.
+     */
+    @Override
+    public void sendControl(String message) {
+        if (message == null || closed) return;
+
+        SameProcessChannel linked = peer;
+        if (linked == null) {
+            sendMessage(message);
+            return;
+        }
+        linked.postControl(message);
+    }
+
+    // Called on the receiving side of the control lane
+    private void postControl(String message) {
+        controlIncoming.add(message);
+        wakeBlockedReader();
+        if (hasPendingReceives) {
+            deliverPendingReceives();
+        }
+    }
+
+    /**
+     * Next message by priority without blocking: control lane, then messages taken for a receiver that
+     * gave up, then the data queue. Ends the stream once the peer finished and its data is drained.
+     * @return null if nothing is available right now or at end of stream
+     */
+    private String pollNext() {
+        if (endOfStream) return null;
+        String message = controlIncoming.poll();
+        while (message == END_OF_STREAM) {
+            peerFinished = true;
+            message = controlIncoming.poll();
+        }
+        if (message != null) return message;
+
+        if (hasUndelivered) {
+            message = pollUndelivered();
+            if (message != null) return message;
+        }
+        message = pollData();
+        if (message == null && peerFinished) {
+            SameProcessChannel linked = peer;
+            if (linked == null || (!linked.spilling && !linked.hasPendingSends)) {
+                reachEndOfStream();
+            }
+        }
+        return message;
+    }
+
+    // Data queue without the markers
+    private String pollData() {
+        String message;
+        do {
+            message = incomingQueue.poll();
+        } while (message == WAKE);
+        if (message == END_OF_STREAM) {
+            reachEndOfStream(); // unlinked peer or our own shutdown
+            return null;
+        }
+        return message;
+    }
+
+    @Override
+    public void sendBatch(List<String> messages) {
+        if (closed) return;
+        if (hasPendingSends || canSpill()) {
+            for (String message : messages) {
+                sendMessage(message);
+            }
+            return;
+        }
+        try {
+            for (String message : messages) {
+                if (message == null) continue;
+                if (!outgoingQueue.offer(message)) {
+                    // Queue full - let the peer's async receivers drain before waiting on space
+                    notifyPeerReceives();
+                    if (!outgoingQueue.offer(message, SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        System.err.println("Failed to send message within timeout: " + message);
+                    }
+                }
+            }
+        } catch (InterruptedException interrupExp) {
+            interrupExp.printStackTrace();
+            Thread.currentThread().interrupt();
+        } finally {
+            notifyPeerReceives();
+        }
+    }
+
+    @Override
+    public int receiveBatch(Collection<? super String> sink, int maxMessages) {
+        if (maxMessages <= 0 || endOfStream) return 0;
+
+        int count = 0;
+        String message;
+        // Control lane and the undelivered message first, then the rest of the burst in one drainTo
+        while (count < maxMessages && (!controlIncoming.isEmpty() || hasUndelivered) && (message = pollNext()) != null) {
+            sink.add(message);
+            count++;
+        }
+        count += drainIncoming(sink, maxMessages - count);
+        if (count == 0 && !endOfStream) {
+            message = receiveMessage(); // blocks for the first message or end of stream
+            if (message == null) return 0;
+            sink.add(message);
+            count = 1 + drainIncoming(sink, maxMessages - 1);
+        }
+        releasePeerSends();
+        return count;
+    }
+
+    /**
+     * Moves queued messages into the sink with one drainTo, i.e. one lock acquisition,
+     * keeping the markers out of it.
+     */
+    private int drainIncoming(Collection<? super String> sink, int maxMessages) {
+        if (maxMessages <= 0 || endOfStream) return 0;
+        synchronized (drained) {
+            incomingQueue.drainTo(drained, maxMessages);
+            int count = 0;
+            for (String message : drained) {
+                if (message == END_OF_STREAM) {
+                    reachEndOfStream();
+                } else if (message != WAKE) {
+                    sink.add(message);
+                    count++;
+                }
+            }
+            drained.clear();
+            return count;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> sendAsync(String message) {
+        if (message == null) return CompletableFuture.completedFuture(null);
+        if (closed) return CompletableFuture.failedFuture(new ClosedChannelException());
+        if (peer == null) return CompletableFuture.failedFuture(notLinked());
+
+        if (!hasPendingSends && offerOutgoing(message)) {
+            notifyPeerReceives();
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (pendingSends) {
+            pendingSends.add(new PendingSend(message, future));
+            hasPendingSends = true;
+        }
+        // Re-check after registering, the peer may have freed space before it could see us
+        releasePendingSends();
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<String> receiveAsync() {
+        if (peer == null) return CompletableFuture.failedFuture(notLinked());
+        CompletableFuture<String> future = new CompletableFuture<>();
+        synchronized (pendingReceives) {
+            pendingReceives.add(future);
+            hasPendingReceives = true;
+        }
+        // Re-check after registering, the peer may have offered before it could see us
+        deliverPendingReceives();
+        return future;
+    }
+
+    /**
+     * Hands queued messages to waiting async receivers.
+     * Futures are completed outside the lock so their callbacks may use either channel freely.
+     */
+    private void deliverPendingReceives() {
+        while (true) {
+            CompletableFuture<String> receiver;
+            String message;
+            boolean drainPeer = false;
+            synchronized (pendingReceives) {
+                receiver = pendingReceives.peek();
+                while (receiver != null && receiver.isDone()) {
+                    pendingReceives.poll(); // cancelled or timed out
+                    receiver = pendingReceives.peek();
+                }
+                message = receiver == null ? null : pollNext();
+                if (message != null || (receiver != null && endOfStream)) {
+                    pendingReceives.poll();
+                } else {
+                    drainPeer = receiver != null && peerFinished;
+                    receiver = null;
+                }
+                hasPendingReceives = !pendingReceives.isEmpty();
+            }
+            if (drainPeer) {
+                releasePeerSends(); // outside the lock, moving the closed peer's sends calls back in here
+                if (!pendingReceives.isEmpty()) continue;
+            }
+            if (receiver == null) return;
+            if (message == null) {
+                receiver.complete(null); // end of stream
+                continue;
+            }
+
+            if (!receiver.complete(message)) {
+                pushBackUndelivered(message);
+            }
+            releasePeerSends();
+        }
+    }
+
+    /**
+     * Moves waiting async sends into the outgoing queue while it has space.
+     * The head send is claimed by completing its future before its message is offered, so a timeout or cancel
+     * either lands first and withdraws the message, or finds the send already complete - never both. A claimed
+     * send that then finds no room (another producer took it first) stays at the head and goes out first once
+     * the peer frees space. Futures are completed outside the lock so their callbacks may send.
+     */
+    private void releasePendingSends() {
+        while (true) {
+            PendingSend send;
+            boolean offered = false;
+            synchronized (pendingSends) {
+                send = pendingSends.peek();
+                while (send != null && send.future().isCompletedExceptionally()) {
+                    pendingSends.poll(); // cancelled or timed out - message is withdrawn
+                    send = pendingSends.peek();
+                }
+                if (send != null && send.future().isDone()) {
+                    // Claimed, here or by a releaser that lost the room to another producer
+                    offered = offerOutgoing(send.message());
+                    if (offered) {
+                        pendingSends.poll();
+                    } else {
+                        send = null;
+                    }
+                } else if (send != null && !hasRoomFor(send.message())) {
+                    send = null; // no room to claim for, the peer releases us once it takes a message
+                }
+                hasPendingSends = !pendingSends.isEmpty();
+            }
+            if (send == null) return;
+
+            if (offered) {
+                notifyPeerReceives();
+            } else {
+                send.future().complete(null); // claim, offered on the next pass unless a timeout got there first
+            }
+        }
+    }
+
+    /**
+     * Marks the incoming side finished and releases the readers parked on the data queue. The queue is the
+     * peer's outgoing one, so no end of stream marker is put back into it.
+     */
+    private void reachEndOfStream() {
+        endOfStream = true;
+        wakeBlockedReader();
+    }
+
+    /**
+     * Sends end of stream on the control lane, so a full data queue cannot hold it back; the peer applies it
+     * after the messages sent, spilled or queued as async sends before it. Unlinked channels have no control lane
+     * and put the marker in the data queue; while that is full the timer retries with growing pauses until the
+     * reader made room, so shutdown does not block and the marker is never lost.
+     */
+    private void offerEndOfStream() {
+        SameProcessChannel linked = peer;
+        if (linked != null) {
+            linked.postControl(END_OF_STREAM);
+        } else {
+            offerEndOfStream(1);
+        }
+    }
+
+    private void offerEndOfStream(long retryMillis) {
+        if (!outgoingQueue.offer(END_OF_STREAM)) {
+            HashedWheelTimer.shared().newTimeout(() -> offerEndOfStream(Math.min(retryMillis * 2, MAX_EOS_RETRY_MS)),
+                    retryMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Nobody would complete a parked future, see connect
+    private static IllegalStateException notLinked() {
+        return new IllegalStateException("Async operations need channels linked with SameProcessChannel.connect");
+    }
+
+    private boolean canSpill() {
+        return spill != null && peer != null;
+    }
+
+    // Whether offerOutgoing would take the message now, racing producers aside
+    private boolean hasRoomFor(String message) {
+        if (outgoingQueue.remainingCapacity() > 0) return true;
+        if (!canSpill()) return false;
+        synchronized (spill) {
+            return spill.fits(message);
+        }
+    }
+
+    /**
+     * Puts a message in the outgoing queue, or in the spill when the queue is full or the spill
+     * already holds older messages.
+     * @return false if neither had room
+     */
+    private boolean offerOutgoing(String message) {
+        if (!spilling && outgoingQueue.offer(message)) return true;
+        if (!canSpill()) return false;
+
+        synchronized (spill) {
+            if (spill.isEmpty() && outgoingQueue.offer(message)) return true;
+            boolean spilled = spill.offer(message);
+            spilling = !spill.isEmpty();
+            // The peer may have emptied the queue before it could see spilling, and then blocks without
+            // draining the spill; re-check for space now that spilling is published
+            drainSpill();
+            return spilled;
+        }
+    }
+
+    /**
+     * Moves spilled messages back into the outgoing queue, oldest first, while it has space.
+     * Called by the peer after it took messages from that queue.
+     */
+    private void drainSpill() {
+        synchronized (spill) {
+            String message;
+            while ((message = spill.peek()) != null && outgoingQueue.offer(message)) {
+                spill.remove();
+            }
+            spilling = !spill.isEmpty();
+        }
+    }
+
+    /**
+     * @return messages currently parked off-heap waiting for queue space
+     */
+    public int getSpilledCount() {
+        if (spill == null) return 0;
+        synchronized (spill) {
+            return spill.size();
+        }
+    }
+
+    private String pollUndelivered() {
+        synchronized (undelivered) {
+            String message = undelivered.poll();
+            hasUndelivered = !undelivered.isEmpty();
+            return message;
+        }
+    }
+
+    private void pushBackUndelivered(String message) {
+        synchronized (undelivered) {
+            undelivered.addFirst(message);
+            hasUndelivered = true;
+        }
+        deliverPendingReceives();
+    }
+
+    private void notifyPeerReceives() {
+        SameProcessChannel linked = peer;
+        if (linked != null && linked.hasPendingReceives) {
+            linked.deliverPendingReceives();
+        }
+    }
+
+    private void releasePeerSends() {
+        SameProcessChannel linked = peer;
+        if (linked == null) return;
+        if (linked.spilling) {
+            linked.drainSpill(); // spilled messages are older than any pending send
+        }
+        if (linked.hasPendingSends) {
+            linked.releasePendingSends();
+        }
+    }
+
+    /**
+     * Sends end of stream to the peer and releases this channel's own blocked or async readers.
+     * Messages already sent, spilled or waiting as async sends are still delivered before the marker.
+     */
     @Override
     public void shutdown() {
-        // No specific resources to clean up in this implementation
+        if (closed) return;
+        closed = true;
+        offerEndOfStream();
+        reachEndOfStream();
+        deliverPendingReceives();
     }
 
 }
@@ -0,0 +1,126 @@
+package com.playercommunication.channel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Off-heap FIFO of serialized messages used when an in-process queue overflows.
+ * Messages are stored as a 4-byte length followed by their UTF-8 bytes in a direct ring buffer,
+ * so a burst parked here costs no heap and gives the collector nothing to trace.
+ * Not thread-safe - the owning channel guards it.
+ */
+final class SpillBuffer {
+
+    private static final int LENGTH_SIZE = 4;
+
+    private final ByteBuffer ring;
+    private final int capacity;
+    private long head; // read position, grows forever, slot = position % capacity
+    private long tail; // write position
+    private int messageCount;
+    private byte[] scratch = new byte[256]; // decode buffer, grown for larger messages
+
+    /**
+     * @param capacityBytes Off-heap bytes reserved for spilled messages including their length prefix
+     */
+    SpillBuffer(int capacityBytes) {
+        if (capacityBytes <= LENGTH_SIZE) {
+            throw new IllegalArgumentException("Spill capacity too small: " + capacityBytes);
+        }
+        this.ring = ByteBuffer.allocateDirect(capacityBytes);
+        this.capacity = capacityBytes;
+    }
+
+    /**
+     * @return false if the message does not fit in the remaining space
+     */
+    boolean offer(String message) {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        if (LENGTH_SIZE + payload.length > capacity - usedBytes()) return false;
+
+        putInt(payload.length);
+        put(payload, payload.length);
+        messageCount++;
+        return true;
+    }
+
+    /**
+     * Cheap upper-bound check that needs no encoding: a char takes at most 3 UTF-8 bytes.
+     * @return true if {@link #offer} is sure to accept the message
+     */
+    boolean fits(String message) {
+        return LENGTH_SIZE + 3L * message.length() <= capacity - usedBytes();
+    }
+
+    /**
+     * @return oldest message without removing it, or null if empty
+     */
+    String peek() {
+        if (messageCount == 0) return null;
+
+        int length = getInt(head);
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        get(head + LENGTH_SIZE, scratch, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Drops the oldest message, normally right after a successful {@link #peek()}.
+     */
+    void remove() {
+        if (messageCount == 0) return;
+
+        head += LENGTH_SIZE + getInt(head);
+        messageCount--;
+    }
+
+    boolean isEmpty() {
+        return messageCount == 0;
+    }
+
+    int size() {
+        return messageCount;
+    }
+
+    long usedBytes() {
+        return tail - head;
+    }
+
+    private void putInt(int value) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            ring.put(slot(tail++), (byte) (value >>> shift));
+        }
+    }
+
+    private int getInt(long position) {
+        int value = 0;
+        for (int i = 0; i < LENGTH_SIZE; i++) {
+            value = (value << 8) | (ring.get(slot(position + i)) & 0xFF);
+        }
+        return value;
+    }
+
+    // Copies in at most two runs, the second one when the record wraps around the end
+    private void put(byte[] source, int length) {
+        int offset = slot(tail);
+        int firstRun = Math.min(length, capacity - offset);
+        ring.put(offset, source, 0, firstRun);
+        ring.put(0, source, firstRun, length - firstRun);
+        tail += length;
+    }
+
+    private void get(long position, byte[] target, int length) {
+        int offset = slot(position);
+        int firstRun = Math.min(length, capacity - offset);
+        ring.get(offset, target, 0, firstRun);
+        ring.get(0, target, firstRun, length - firstRun);
+    }
+
+    private int slot(long position) {
+        return (int) (position % capacity);
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.playercommunication.channel;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Interceptor stage printing one line per message with its direction, length and time since the channel
+ * was created, so the conversation of a single deployment can be followed without a debugger.
+ */
+public final class TracingChannel extends InterceptingChannel {
+
+    private final String name;
+    private final PrintStream out;
+    private final long startNanos = System.nanoTime();
+
+    public TracingChannel(MessageChannel delegate, String name, PrintStream out) {
+        super(delegate);
+        this.name = name;
+        this.out = out;
+    }
+
+    @Override
+    protected String outbound(String message) {
+        trace("->", message);
+        return message;
+    }
+
+    @Override
+    protected String inbound(String message) {
+        trace("<-", message);
+        return message;
+    }
+
+    private void trace(String direction, String message) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        out.printf("[trace %s] %s %d chars at %d us: %s%n", name, direction, message.length(), micros, message);
+    }
+
+}
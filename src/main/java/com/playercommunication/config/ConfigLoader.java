@@ -8,13 +8,19 @@ import java.util.Properties;
  * Configuration loader for player communication application.
  * Loads settings from application.properties file in classpath.
  * Provides methods to access configuration values like queue capacity, network port, host, and thread priority.
+ * The file is read and parsed once, on first use, into an immutable {@link ConfigSnapshot}; the getters only read its fields.
  */
 public class ConfigLoader {
 
-	private static final Properties properties = new Properties();
 	private static final String CONFIG_FILE = "application.properties";
 
-	 static {
+	// Holder idiom: nothing is read until the first getter runs, and only once
+	private static final class Holder {
+		private static final ConfigSnapshot SNAPSHOT = ConfigSnapshot.from(load());
+	}
+
+	private static Properties load() {
+		Properties properties = new Properties();
 		try (InputStream inputStream = ConfigLoader.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
 			if (inputStream != null) {
 				properties.load(inputStream);
@@ -24,22 +30,103 @@ public class ConfigLoader {
 		} catch (Exception e) {
 			System.err.println("Error loading configuration: " + e.getMessage());
 		}
+		return properties;
+	}
+
+	public static ConfigSnapshot snapshot() {
+		return Holder.SNAPSHOT;
 	}
 
 	public static int getQueueCapacity() {
-		return Integer.parseInt(properties.getProperty("queue.capacity"));
+		return Holder.SNAPSHOT.queueCapacity();
 	}
 
     public static int getNetworkPort() {
-        return Integer.parseInt(properties.getProperty("network.port"));
+        return Holder.SNAPSHOT.networkPort();
     }
 
     public static String getNetworkHost() {
-        return properties.getProperty("network.host");
+        return Holder.SNAPSHOT.networkHost();
     }
 
+	public static int getQueueSpillCapacityBytes() {
+		return Holder.SNAPSHOT.queueSpillCapacityBytes();
+	}
+
 	public static int getMaxMessageCount() {
-		return Integer.parseInt(properties.getProperty("message.count.max"));
+		return Holder.SNAPSHOT.maxMessageCount();
+	}
+
+	public static String getMeshNodes() {
+		return Holder.SNAPSHOT.meshNodes();
+	}
+
+	public static int getMeshPairs() {
+		return Holder.SNAPSHOT.meshPairs();
+	}
+
+	public static long getMeshConnectTimeoutMillis() {
+		return Holder.SNAPSHOT.meshConnectTimeoutMillis();
+	}
+
+	public static String getMessageFormat() {
+		return Holder.SNAPSHOT.messageFormat();
+	}
+
+	public static int getBroadcastResponders() {
+		return Holder.SNAPSHOT.broadcastResponders();
+	}
+
+	public static int getBroadcastRingCapacity() {
+		return Holder.SNAPSHOT.broadcastRingCapacity();
+	}
+
+	public static int getShardPairs() {
+		return Holder.SNAPSHOT.shardPairs();
+	}
+
+	public static int getShardCount() {
+		return Holder.SNAPSHOT.shardCount();
+	}
+
+	public static int getEventLoopPairs() {
+		return Holder.SNAPSHOT.eventLoopPairs();
+	}
+
+	public static int getShardRingCapacity() {
+		return Holder.SNAPSHOT.shardRingCapacity();
+	}
+
+	public static String getMulticastGroup() {
+		return Holder.SNAPSHOT.multicastGroup();
+	}
+
+	public static int getMulticastPort() {
+		return Holder.SNAPSHOT.multicastPort();
+	}
+
+	public static int getMulticastRetentionSize() {
+		return Holder.SNAPSHOT.multicastRetentionSize();
+	}
+
+	public static long getSessionResumeTimeoutMillis() {
+		return Holder.SNAPSHOT.sessionResumeTimeoutMillis();
+	}
+
+	public static int getSessionRetransmitSize() {
+		return Holder.SNAPSHOT.sessionRetransmitSize();
+	}
+
+	public static long getHeartbeatIntervalMillis() {
+		return Holder.SNAPSHOT.heartbeatIntervalMillis();
+	}
+
+	public static long getIdleTimeoutMillis() {
+		return Holder.SNAPSHOT.idleTimeoutMillis();
+	}
+
+	public static long getFlushMaxDelayMicros() {
+		return Holder.SNAPSHOT.flushMaxDelayMicros();
 	}
 
 }
@@ -0,0 +1,114 @@
+package com.playercommunication.config;
+
+import java.util.Properties;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Typed, immutable view of application.properties, parsed once when the configuration is first used.
+ * Missing keys fall back to the defaults below; a malformed number fails at load time instead of
+ * at whichever getter happens to read it first.
+ */
+public record ConfigSnapshot(
+        int queueCapacity,
+        int queueSpillCapacityBytes, // 0 disables the off-heap overflow tier, a full queue then makes the sender wait
+        int maxMessageCount,
+        String messageFormat, // text, or binary for header + payload messages
+        String networkHost,
+        int networkPort,
+        long flushMaxDelayMicros, // 0 disables coalescing, every message is flushed on its own
+        long sessionResumeTimeoutMillis, // 0 disables reliable sessions, a dropped connection then ends the conversation
+        int sessionRetransmitSize,
+        long heartbeatIntervalMillis, // 0 disables heartbeats and idle detection
+        long idleTimeoutMillis, // 0 means three heartbeat intervals
+        int broadcastResponders, // 0 keeps the one-to-one conversation
+        int broadcastRingCapacity,
+        int shardPairs, // 0 keeps the single pair on its own threads
+        int shardCount, // 0 means one shard thread per available core
+        int shardRingCapacity,
+        int eventLoopPairs, // 0 keeps one thread per player
+        String multicastGroup,
+        int multicastPort,
+        int multicastRetentionSize,
+        long emulationDelayMillis, // one-way, applied by EmulatedLinkChannel on each sending side
+        long emulationJitterMillis,
+        long emulationBandwidthKbps, // 0 = unlimited
+        double emulationLossPercent,
+        long emulationRetransmitMillis, // 0 drops lost messages, otherwise they arrive that much later
+        int emulationBufferMessages, // messages in transit before senders wait, 0 = unlimited
+        boolean pipelineMetrics,
+        boolean pipelineCompression, // both ends must enable it
+        int pipelineCompressionMinBytes,
+        boolean pipelineTracing,
+        String meshNodes, // comma separated host:port list, the same on every node
+        int meshPairs, // conversations per node
+        long meshConnectTimeoutMillis) { // how long a node waits for the other nodes to come up
+
+    /**
+     * @return true if any link impairment is configured
+     */
+    public boolean emulationEnabled() {
+        return emulationDelayMillis > 0 || emulationJitterMillis > 0 || emulationBandwidthKbps > 0
+                || emulationLossPercent > 0;
+    }
+
+    /**
+     * @param properties Raw key/value pairs, typically application.properties
+     */
+    public static ConfigSnapshot from(Properties properties) {
+        return new ConfigSnapshot(
+                intValue(properties, "queue.capacity", 16),
+                intValue(properties, "queue.spill.capacity.bytes", 0),
+                intValue(properties, "message.count.max", 10),
+                properties.getProperty("message.format", "text").trim(),
+                properties.getProperty("network.host", "localhost"),
+                intValue(properties, "network.port", 9090),
+                longValue(properties, "network.flush.max.delay.micros", 0),
+                longValue(properties, "network.session.resume.timeout.ms", 0),
+                intValue(properties, "network.session.retransmit.size", 1024),
+                longValue(properties, "network.heartbeat.interval.ms", 0),
+                longValue(properties, "network.idle.timeout.ms", 0),
+                intValue(properties, "broadcast.responders", 0),
+                intValue(properties, "broadcast.ring.capacity", 1024),
+                intValue(properties, "shard.pairs", 0),
+                intValue(properties, "shard.count", 0),
+                intValue(properties, "shard.ring.capacity", 1024),
+                intValue(properties, "event.loop.pairs", 0),
+                properties.getProperty("multicast.group", "239.1.2.3"),
+                intValue(properties, "multicast.port", 9191),
+                intValue(properties, "multicast.retention.size", 1024),
+                longValue(properties, "emulation.delay.ms", 0),
+                longValue(properties, "emulation.jitter.ms", 0),
+                longValue(properties, "emulation.bandwidth.kbps", 0),
+                doubleValue(properties, "emulation.loss.percent", 0),
+                longValue(properties, "emulation.loss.retransmit.ms", 0),
+                intValue(properties, "emulation.buffer.messages", 1024),
+                booleanValue(properties, "pipeline.metrics", false),
+                booleanValue(properties, "pipeline.compression", false),
+                intValue(properties, "pipeline.compression.min.bytes", 256),
+                booleanValue(properties, "pipeline.tracing", false),
+                properties.getProperty("mesh.nodes", "localhost:9300,localhost:9310").trim(),
+                intValue(properties, "mesh.pairs", 4),
+                longValue(properties, "mesh.connect.timeout.ms", 60_000));
+    }
+
+    private static int intValue(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longValue(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    private static boolean booleanValue(Properties properties, String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    private static double doubleValue(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+}
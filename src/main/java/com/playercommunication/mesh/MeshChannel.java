@@ -0,0 +1,207 @@
+package com.playercommunication.mesh;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import com.playercommunication.channel.MessageChannel;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * A mesh player's channel to its peer: sends are routed by the peer's id through the {@link MeshNode},
+ * receives come from this player's own inbox, which the node fills from local players and from the links.
+ * Sends complete once the message is in the peer's inbox or written to the link, and fail if it cannot get
+ * there. The inbox is bounded: deliveries beyond its capacity wait in arrival order until a receive frees space.
+ * shutdown ends the peer's stream wherever it lives, like the other transports.
+ */
+final class MeshChannel implements MessageChannel {
+
+    private final MeshNode node;
+    private final String playerId;
+    private final String peerId;
+    private final int capacity;
+
+    // Inbox, guarded by this
+    private final Queue<String> inbox = new ArrayDeque<>();
+    private final Queue<Delivery> waitingDeliveries = new ArrayDeque<>(); // arrived while the inbox was full
+    private final Queue<CompletableFuture<String>> receivers = new ArrayDeque<>();
+    private boolean endOfStream;
+    private boolean closed;
+
+    MeshChannel(MeshNode node, String playerId, String peerId, int capacity) {
+        this.node = node;
+        this.playerId = playerId;
+        this.peerId = peerId;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void sendMessage(String message) throws IOException {
+        if (message == null) return;
+        if (isClosed()) throw new ClosedChannelException();
+        try {
+            node.route(peerId, message).get();
+        } catch (InterruptedException interrupExp) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending to " + peerId, interrupExp);
+        } catch (ExecutionException sendExp) {
+            Throwable cause = sendExp.getCause();
+            throw cause instanceof IOException ioExp ? ioExp : new IOException(cause);
+        }
+    }
+
+    /**
+     * @return Future completed once the message reached the peer's inbox or its node's link, failed if it
+     *         cannot get there
+     */
+    @Override
+    public CompletableFuture<Void> sendAsync(String message) {
+        if (message == null) return CompletableFuture.completedFuture(null);
+        if (isClosed()) return CompletableFuture.failedFuture(new ClosedChannelException());
+        return node.route(peerId, message);
+    }
+
+    @Override
+    public String receiveMessage() {
+        String message;
+        Delivery admitted;
+        synchronized (this) {
+            try {
+                while (inbox.isEmpty() && !endOfStream) {
+                    wait();
+                }
+            } catch (InterruptedException interrupExp) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            message = inbox.poll();
+            admitted = admitWaiting();
+        }
+        if (admitted != null) admitted.future().complete(null);
+        return message;
+    }
+
+    @Override
+    public int receiveBatch(Collection<? super String> sink, int maxMessages) {
+        if (maxMessages <= 0) return 0;
+        String first = receiveMessage();
+        if (first == null) return 0;
+        sink.add(first);
+        int count = 1;
+        while (count < maxMessages) {
+            String message;
+            Delivery admitted;
+            synchronized (this) {
+                message = inbox.poll();
+                admitted = admitWaiting();
+            }
+            if (admitted != null) admitted.future().complete(null);
+            if (message == null) break;
+            sink.add(message);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public CompletableFuture<String> receiveAsync() {
+        CompletableFuture<String> receiver = new CompletableFuture<>();
+        Delivery admitted = null;
+        synchronized (this) {
+            String message = inbox.poll();
+            if (message != null || endOfStream) {
+                admitted = admitWaiting();
+                receiver.complete(message);
+            } else {
+                receivers.add(receiver);
+            }
+        }
+        if (admitted != null) admitted.future().complete(null);
+        return receiver;
+    }
+
+    @Override
+    public void shutdown() {
+        Queue<Delivery> discarded;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            discarded = new ArrayDeque<>(waitingDeliveries);
+            waitingDeliveries.clear();
+        }
+        for (Delivery delivery : discarded) {
+            delivery.future().complete(null); // nobody reads them any more, do not hold the senders
+        }
+        node.route(peerId, null).whenComplete((ignored, sendExp) -> { // end of stream for the peer
+            if (sendExp != null) sendExp.printStackTrace();
+        });
+        deliverEndOfStream(); // own blocked receivers
+    }
+
+    /**
+     * Hands the message to a waiting receiver, or puts it in the inbox.
+     * @return Future completed once the message is in, later if the inbox is full; at once when this player
+     *         has shut down and the message is discarded
+     */
+    CompletableFuture<Void> deliver(String message) {
+        CompletableFuture<String> receiver;
+        synchronized (this) {
+            if (closed) return CompletableFuture.completedFuture(null);
+            while ((receiver = receivers.poll()) != null && receiver.isDone()) {
+                // cancelled or timed out, the message goes to the next receiver
+            }
+            if (receiver == null) {
+                if (inbox.size() < capacity && waitingDeliveries.isEmpty()) {
+                    inbox.add(message);
+                    notifyAll();
+                    return CompletableFuture.completedFuture(null);
+                }
+                CompletableFuture<Void> admitted = new CompletableFuture<>();
+                waitingDeliveries.add(new Delivery(message, admitted));
+                return admitted;
+            }
+        }
+        if (!receiver.complete(message)) { // outside the lock, the continuation may run right here
+            return deliver(message); // the receiver gave up meanwhile
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    void deliverEndOfStream() {
+        Queue<CompletableFuture<String>> waiting;
+        synchronized (this) {
+            endOfStream = true;
+            notifyAll();
+            waiting = new ArrayDeque<>(receivers);
+            receivers.clear();
+        }
+        for (CompletableFuture<String> receiver : waiting) {
+            receiver.complete(null);
+        }
+    }
+
+    // Must hold this, moves the oldest waiting delivery into the slot a receive just freed
+    private Delivery admitWaiting() {
+        if (inbox.size() >= capacity) return null;
+        Delivery delivery = waitingDeliveries.poll();
+        if (delivery != null) inbox.add(delivery.message());
+        return delivery;
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public String toString() {
+        return playerId + " -> " + peerId;
+    }
+
+    private record Delivery(String message, CompletableFuture<Void> future) {
+    }
+
+}
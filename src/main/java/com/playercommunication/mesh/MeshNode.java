@@ -0,0 +1,303 @@
+package com.playercommunication.mesh;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.playercommunication.channel.MessageChannel;
+import com.playercommunication.channel.NetworkChannel;
+import com.playercommunication.config.ConfigLoader;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * One process of a player mesh built from a static node list (mesh.nodes).
+ * Every player id belongs to exactly one node, {@link #nodeOf}, which every node computes the same way, so a
+ * message is routed by its target id alone: handed straight to the target's inbox when it lives here, otherwise
+ * written to the single {@link NetworkChannel} this node shares with the target's node. All players of a node
+ * pair multiplex over that one connection; a line on it is an envelope of a type char, the target id, a unit
+ * separator and the payload.
+ * Links: node j listens on its port + i for node i &lt; j, and node i connects there, so each node reserves
+ * as many consecutive ports as there are nodes. Nodes may start in any order, but each waits at most
+ * mesh.connect.timeout.ms for the others. Players are registered before {@link #start()}; closing sends
+ * a bye on every link and waits for the peers' byes, which arrive only behind their last message to us.
+ * Each player's inbox holds queue.capacity messages: a full one makes local senders wait and stops the link
+ * reader, so a slow player pushes back on its senders instead of buffering without limit.
+ */
+public final class MeshNode implements AutoCloseable {
+
+    private static final char TYPE_DATA = 'D';
+    private static final char TYPE_END_OF_STREAM = 'E';
+    private static final char TYPE_BYE = 'B';
+    private static final char SEPARATOR = '\u001F';
+    private static final int READ_BATCH = 64;
+    private static final long BYE_TIMEOUT_SECONDS = 10;
+
+    private final List<InetSocketAddress> nodes;
+    private final int selfIndex;
+    private final int inboxCapacity;
+    private final long connectTimeoutMillis;
+    private final MessageChannel[] links; // by node index, null for this node
+    private final Map<String, MeshChannel> players = new ConcurrentHashMap<>();
+    private final CountDownLatch peersFinished;
+    private final LongAdder localDeliveries = new LongAdder();
+    private final LongAdder remoteSends = new LongAdder();
+    private volatile boolean started;
+
+    /**
+     * @param nodes Addresses of every node in the mesh, in the same order on every node
+     * @param selfIndex Position of this node in the list
+     */
+    public MeshNode(List<InetSocketAddress> nodes, int selfIndex) {
+        this(nodes, selfIndex, ConfigLoader.getQueueCapacity());
+    }
+
+    /**
+     * @param inboxCapacity Messages a player's inbox holds before its senders wait
+     */
+    public MeshNode(List<InetSocketAddress> nodes, int selfIndex, int inboxCapacity) {
+        this(nodes, selfIndex, inboxCapacity, ConfigLoader.getMeshConnectTimeoutMillis());
+    }
+
+    /**
+     * @param connectTimeoutMillis How long {@link #start()} waits for each other node to accept or connect
+     */
+    public MeshNode(List<InetSocketAddress> nodes, int selfIndex, int inboxCapacity, long connectTimeoutMillis) {
+        if (selfIndex < 0 || selfIndex >= nodes.size()) {
+            throw new IllegalArgumentException("Node index " + selfIndex + " outside the " + nodes.size() + " nodes");
+        }
+        if (inboxCapacity <= 0) throw new IllegalArgumentException("Inbox capacity must be positive");
+        if (connectTimeoutMillis <= 0) throw new IllegalArgumentException("Connect timeout must be positive");
+        this.nodes = List.copyOf(nodes);
+        this.selfIndex = selfIndex;
+        this.inboxCapacity = inboxCapacity;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.links = new MessageChannel[nodes.size()];
+        this.peersFinished = new CountDownLatch(nodes.size() - 1);
+    }
+
+    /**
+     * @param nodeList Comma separated host:port entries, as in mesh.nodes
+     */
+    public static List<InetSocketAddress> parseNodes(String nodeList) {
+        List<InetSocketAddress> nodes = new ArrayList<>();
+        for (String entry : nodeList.split(",")) {
+            String node = entry.trim();
+            int colon = node.lastIndexOf(':');
+            if (colon <= 0) throw new IllegalArgumentException("Expected host:port, got '" + node + "'");
+            nodes.add(InetSocketAddress.createUnresolved(node.substring(0, colon),
+                    Integer.parseInt(node.substring(colon + 1))));
+        }
+        return nodes;
+    }
+
+    /**
+     * @return index of the node hosting the player, the same on every node
+     */
+    public int nodeOf(String playerId) {
+        int hash = playerId.hashCode() * 0x9E3779B9; // spread ids that differ in their last character
+        return Math.floorMod(hash ^ (hash >>> 16), nodes.size());
+    }
+
+    public boolean isLocal(String playerId) {
+        return nodeOf(playerId) == selfIndex;
+    }
+
+    /**
+     * Registers a local player talking to one peer anywhere in the mesh. Must be called before {@link #start()}.
+     * @return the player's channel to its peer
+     */
+    public MessageChannel channelFor(String playerId, String peerId) {
+        if (started) throw new IllegalStateException("Players must be registered before start()");
+        if (!isLocal(playerId)) throw new IllegalArgumentException(playerId + " lives on node " + nodeOf(playerId));
+        MeshChannel channel = new MeshChannel(this, playerId, peerId, inboxCapacity);
+        if (players.putIfAbsent(playerId, channel) != null) {
+            throw new IllegalArgumentException("Player already registered: " + playerId);
+        }
+        return channel;
+    }
+
+    /**
+     * Opens one connection to every other node, accepting from lower indexes and connecting to higher ones,
+     * and starts reading them. Blocks until the whole mesh is connected.
+     * @throws IOException if a node did not come up within the connect timeout
+     */
+    public void start() throws IOException {
+        started = true;
+        List<Thread> connectors = new ArrayList<>();
+        IOException[] failure = new IOException[1];
+        for (int node = 0; node < nodes.size(); node++) {
+            if (node == selfIndex) continue;
+            int peer = node;
+            connectors.add(Thread.startVirtualThread(() -> {
+                try {
+                    links[peer] = connect(peer);
+                } catch (IOException ioExp) {
+                    synchronized (failure) {
+                        failure[0] = ioExp;
+                    }
+                }
+            }));
+        }
+        try {
+            for (Thread connector : connectors) {
+                connector.join();
+            }
+        } catch (InterruptedException interrupExp) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while connecting the mesh", interrupExp);
+        }
+        synchronized (failure) {
+            if (failure[0] != null) {
+                for (MessageChannel link : links) {
+                    if (link != null) link.shutdown();
+                }
+                throw failure[0];
+            }
+        }
+        for (int node = 0; node < links.length; node++) {
+            if (links[node] == null) continue;
+            Thread reader = new Thread(new LinkReader(links[node]), "mesh-link-" + selfIndex + "-" + node);
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    private MessageChannel connect(int peer) throws IOException {
+        String linkId = "mesh-" + selfIndex + "-" + peer;
+        if (peer < selfIndex) {
+            return new NetworkChannel(linkId, nodes.get(selfIndex).getPort() + peer, connectTimeoutMillis);
+        }
+        InetSocketAddress address = nodes.get(peer);
+        return new NetworkChannel(linkId, address.getHostString(), address.getPort() + selfIndex,
+                connectTimeoutMillis);
+    }
+
+    /**
+     * Called by MeshChannel to move a message or an end of stream towards the target player.
+     * @return Future completed once the message is in a local inbox or written to the link, failed with an
+     *         IOException if the target is unknown, its node is not connected or the link write failed
+     */
+    CompletableFuture<Void> route(String targetId, String message) {
+        if (isLocal(targetId)) {
+            MeshChannel target = players.get(targetId);
+            if (target == null) {
+                return CompletableFuture.failedFuture(new IOException("No player " + targetId + " on node " + selfIndex));
+            }
+            localDeliveries.increment();
+            if (message == null) {
+                target.deliverEndOfStream();
+                return CompletableFuture.completedFuture(null);
+            }
+            return target.deliver(message);
+        }
+        MessageChannel link = links[nodeOf(targetId)];
+        if (link == null) {
+            return CompletableFuture.failedFuture(
+                    new IOException("Node " + nodeOf(targetId) + " not connected, cannot reach " + targetId));
+        }
+        remoteSends.increment();
+        String envelope = message == null
+                ? TYPE_END_OF_STREAM + targetId + SEPARATOR
+                : TYPE_DATA + targetId + SEPARATOR + message;
+        return link.sendAsync(envelope);
+    }
+
+    /**
+     * @return messages handed from one local player to another without touching a socket
+     */
+    public long getLocalDeliveries() {
+        return localDeliveries.sum();
+    }
+
+    /**
+     * @return messages and ends of stream written to another node
+     */
+    public long getRemoteSends() {
+        return remoteSends.sum();
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Tells every peer this node is done, waits until each peer said the same, then closes the links.
+     * Call once every local player finished.
+     */
+    @Override
+    public void close() {
+        for (MessageChannel link : links) {
+            if (link == null) continue;
+            link.sendAsync(TYPE_BYE + "").whenComplete((ignored, sendExp) -> {
+                if (sendExp != null) sendExp.printStackTrace();
+            });
+        }
+        try {
+            if (!peersFinished.await(BYE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Node " + selfIndex + " closing without a bye from every peer");
+            }
+        } catch (InterruptedException interrupExp) {
+            Thread.currentThread().interrupt();
+        }
+        for (MessageChannel link : links) {
+            if (link != null) link.shutdown();
+        }
+        for (MeshChannel player : players.values()) {
+            player.deliverEndOfStream();
+        }
+    }
+
+    // Dispatches the envelopes of one link to the local players
+    private final class LinkReader implements Runnable {
+
+        private final MessageChannel link;
+        private final List<String> batch = new ArrayList<>(READ_BATCH);
+        private boolean byeReceived;
+
+        private LinkReader(MessageChannel link) {
+            this.link = link;
+        }
+
+        @Override
+        public void run() {
+            while (link.receiveBatch(batch, READ_BATCH) > 0) {
+                for (String envelope : batch) {
+                    dispatch(envelope);
+                }
+                batch.clear();
+            }
+            if (!byeReceived) peersFinished.countDown(); // link gone, do not wait for its bye
+        }
+
+        private void dispatch(String envelope) {
+            if (envelope.isEmpty()) return;
+            char type = envelope.charAt(0);
+            if (type == TYPE_BYE) {
+                byeReceived = true;
+                peersFinished.countDown();
+                return;
+            }
+            int separator = envelope.indexOf(SEPARATOR);
+            if (separator < 0) {
+                System.err.println("Malformed mesh envelope dropped");
+                return;
+            }
+            MeshChannel target = players.get(envelope.substring(1, separator));
+            if (target == null) {
+                System.err.println("No player " + envelope.substring(1, separator) + " on node " + selfIndex);
+            } else if (type == TYPE_DATA) {
+                target.deliver(envelope.substring(separator + 1)).join(); // full inbox stops reading the link
+            } else if (type == TYPE_END_OF_STREAM) {
+                target.deliverEndOfStream();
+            }
+        }
+    }
+
+}
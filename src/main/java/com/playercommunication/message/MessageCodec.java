@@ -0,0 +1,80 @@
+package com.playercommunication.message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Moves binary messages across the String-based {@link com.playercommunication.channel.MessageChannel}.
+ * A message travels as its bytes taken as ISO-8859-1 characters, one char per byte. The JDK stores such a string
+ * compactly with one byte per char, so {@link #toWire} is one array copy and {@link #read} one pass over it.
+ * The in-process transports hand the string over as is; NetworkChannel writes it back as one byte per char
+ * (escaping the newline bytes), while transports that encode UTF-8 (multicast, the spill buffer, compression)
+ * spend two bytes on every byte >= 0x80.
+ * Owns one inbound and one outbound buffer that grow on demand and are reused for every message, so
+ * {@link #read} and {@link #write} return flyweights that stay valid until the next call. Not thread-safe.
+ */
+public final class MessageCodec {
+
+    private final MessageFlyweight reader = new MessageFlyweight();
+    private final MessageFlyweight writer = new MessageFlyweight();
+    private ByteBuffer inbound = ByteBuffer.allocate(256);
+    private ByteBuffer outbound = ByteBuffer.allocate(256);
+
+    /**
+     * Copies the wire form into the inbound buffer.
+     * @return flyweight over the message
+     * @throws IllegalArgumentException if the text is not a message of this schema
+     */
+    public MessageFlyweight read(String wire) {
+        int length = wire.length();
+        if (length < MessageFlyweight.HEADER_LENGTH) {
+            throw new IllegalArgumentException("Not a binary message, " + length + " chars");
+        }
+        if (inbound.capacity() < length) {
+            inbound = ByteBuffer.allocate(Math.max(length, inbound.capacity() * 2));
+        }
+        byte[] bytes = inbound.array();
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) wire.charAt(i);
+        }
+        reader.wrap(inbound, 0);
+        if (reader.getSchemaVersion() != MessageFlyweight.SCHEMA_VERSION
+                || reader.getEncodedLength() != length) {
+            throw new IllegalArgumentException("Not a binary message of schema version " + MessageFlyweight.SCHEMA_VERSION);
+        }
+        return reader;
+    }
+
+    /**
+     * Starts a new outbound message stamped with the current time, the payload is appended through the flyweight.
+     * @param payloadCapacity Payload bytes the caller is going to append at most
+     * @return flyweight over the new message
+     */
+    public MessageFlyweight write(int senderId, long sequence, short flags, int payloadCapacity) {
+        int capacity = MessageFlyweight.HEADER_LENGTH + payloadCapacity;
+        if (outbound.capacity() < capacity) {
+            outbound = ByteBuffer.allocate(Math.max(capacity, outbound.capacity() * 2));
+        }
+        return writer.wrap(outbound, 0).writeHeader(senderId, sequence, System.currentTimeMillis(), flags);
+    }
+
+    /**
+     * @return wire form of the message last started with {@link #write}
+     */
+    public String toWire() {
+        return new String(outbound.array(), 0, writer.getEncodedLength(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Payload decoded as UTF-8 text, for logging.
+     */
+    public static String payloadText(MessageFlyweight message) {
+        byte[] payload = new byte[message.getPayloadLength()];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = message.getPayloadByte(i);
+        }
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.playercommunication.message;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Flyweight over one binary player message in a buffer: a fixed 28-byte header followed by the payload.
+ * <pre>
+ *  0  sequence        long   messages sent by the sender so far, 1 for the first one
+ *  8  timestamp       long   epoch millis when the message was written
+ * 16  senderId        int
+ * 20  flags           short  {@link #FLAG_FIRST}, {@link #FLAG_LAST}
+ * 22  schemaVersion   short
+ * 24  payloadLength   int
+ * 28  payload         bytes
+ * </pre>
+ * Fields are read and written in place at fixed offsets in the buffer's byte order (big-endian unless the
+ * owner changed it), so every accessor is O(1) and nothing is copied or allocated. One instance can be
+ * re-pointed at any number of messages with {@link #wrap}; it is not thread-safe.
+ */
+public final class MessageFlyweight {
+
+    public static final int SEQUENCE_OFFSET = 0;
+    public static final int TIMESTAMP_OFFSET = 8;
+    public static final int SENDER_ID_OFFSET = 16;
+    public static final int FLAGS_OFFSET = 20;
+    public static final int SCHEMA_VERSION_OFFSET = 22;
+    public static final int PAYLOAD_LENGTH_OFFSET = 24;
+    public static final int HEADER_LENGTH = 28;
+
+    public static final short SCHEMA_VERSION = 1;
+    public static final short FLAG_FIRST = 1; // opens the conversation
+    public static final short FLAG_LAST = 2; // sender expects no reply
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Points the flyweight at the message starting at offset, nothing is read yet.
+     * @return this
+     */
+    public MessageFlyweight wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Writes an empty message header for the current schema version.
+     * @return this
+     */
+    public MessageFlyweight writeHeader(int senderId, long sequence, long timestamp, short flags) {
+        buffer.putLong(offset + SEQUENCE_OFFSET, sequence);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        buffer.putInt(offset + SENDER_ID_OFFSET, senderId);
+        buffer.putShort(offset + FLAGS_OFFSET, flags);
+        buffer.putShort(offset + SCHEMA_VERSION_OFFSET, SCHEMA_VERSION);
+        buffer.putInt(offset + PAYLOAD_LENGTH_OFFSET, 0);
+        return this;
+    }
+
+    public long getSequence() {
+        return buffer.getLong(offset + SEQUENCE_OFFSET);
+    }
+
+    public long getTimestamp() {
+        return buffer.getLong(offset + TIMESTAMP_OFFSET);
+    }
+
+    public int getSenderId() {
+        return buffer.getInt(offset + SENDER_ID_OFFSET);
+    }
+
+    public short getFlags() {
+        return buffer.getShort(offset + FLAGS_OFFSET);
+    }
+
+    public boolean hasFlag(short flag) {
+        return (getFlags() & flag) != 0;
+    }
+
+    public short getSchemaVersion() {
+        return buffer.getShort(offset + SCHEMA_VERSION_OFFSET);
+    }
+
+    public int getPayloadLength() {
+        return buffer.getInt(offset + PAYLOAD_LENGTH_OFFSET);
+    }
+
+    /**
+     * @return header plus payload bytes
+     */
+    public int getEncodedLength() {
+        return HEADER_LENGTH + getPayloadLength();
+    }
+
+    public byte getPayloadByte(int index) {
+        return buffer.get(offset + HEADER_LENGTH + index);
+    }
+
+    /**
+     * Copies the payload of another message behind this one's payload, both stay where they are.
+     * @return this
+     */
+    public MessageFlyweight appendPayload(MessageFlyweight source) {
+        int length = source.getPayloadLength();
+        int end = getPayloadLength();
+        buffer.put(offset + HEADER_LENGTH + end, source.buffer, source.offset + HEADER_LENGTH, length);
+        buffer.putInt(offset + PAYLOAD_LENGTH_OFFSET, end + length);
+        return this;
+    }
+
+    /**
+     * @return this
+     */
+    public MessageFlyweight appendPayload(byte[] source, int sourceOffset, int length) {
+        int end = getPayloadLength();
+        buffer.put(offset + HEADER_LENGTH + end, source, sourceOffset, length);
+        buffer.putInt(offset + PAYLOAD_LENGTH_OFFSET, end + length);
+        return this;
+    }
+
+    /**
+     * Appends the decimal digits of a non-negative number to the payload without building a string.
+     * @return this
+     */
+    public MessageFlyweight appendPayloadDigits(long value) {
+        int end = getPayloadLength();
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int position = offset + HEADER_LENGTH + end + digits;
+        long rest = value;
+        do {
+            buffer.put(--position, (byte) ('0' + rest % 10));
+            rest /= 10;
+        } while (rest > 0);
+        buffer.putInt(offset + PAYLOAD_LENGTH_OFFSET, end + digits);
+        return this;
+    }
+
+}
@@ -0,0 +1,344 @@
+package com.playercommunication.shard;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Thread-per-core router hosting many player conversations in one process.
+ * A fixed set of shard threads each owns the players whose id hashes to it and runs their handlers
+ * one message at a time, so a handler never needs to be thread-safe.
+ * Two players on the same shard exchange messages through a plain local deque (direct handoff, no synchronization);
+ * a message for a player on another shard goes through the single-producer single-consumer ring
+ * dedicated to that pair of shards. An idle shard spins briefly and then parks until a producer wakes it.
+ */
+public final class ShardedRouter implements AutoCloseable {
+
+    /**
+     * Player logic driven by its shard thread.
+     */
+    public interface Handler {
+
+        /**
+         * @param message Message from the peer
+         * @return reply for the peer, or null when this player has finished the conversation
+         */
+        String onMessage(String message);
+    }
+
+    private static final int DRAIN_BATCH = 256; // messages per source before looking at the others
+    private static final int SPIN_TRIES = 200;
+    private static final long OVERFLOW_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Shard[] shards;
+    private final Map<String, Endpoint> endpoints = new HashMap<>();
+    private final List<Endpoint> initiators = new ArrayList<>();
+    private final List<String> firstMessages = new ArrayList<>();
+    private CountDownLatch completion;
+    private volatile boolean running;
+
+    /**
+     * @param shardCount Number of shard threads, 0 = one per available core
+     * @param ringCapacity Slots of each shard-to-shard ring, rounded up to a power of two
+     */
+    public ShardedRouter(int shardCount, int ringCapacity) {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        int capacity = Integer.highestOneBit(Math.max(2, ringCapacity) - 1) << 1;
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i, count, capacity);
+        }
+    }
+
+    /**
+     * Registers a two-player conversation. The initiator's first message is delivered to the responder on {@link #start()}
+     * and the conversation completes when either handler returns null.
+     * Must be called before start.
+     */
+    public void addConversation(String initiatorId, Handler initiator, String responderId, Handler responder, String firstMessage) {
+        if (running) {
+            throw new IllegalStateException("Router already started");
+        }
+        Endpoint first = register(initiatorId, initiator);
+        Endpoint second = register(responderId, responder);
+        first.peer = second;
+        second.peer = first;
+        initiators.add(first);
+        firstMessages.add(firstMessage);
+    }
+
+    private Endpoint register(String playerId, Handler handler) {
+        Endpoint endpoint = new Endpoint(handler, shards[shardOf(playerId)]);
+        if (endpoints.putIfAbsent(playerId, endpoint) != null) {
+            throw new IllegalArgumentException("Player already registered: " + playerId);
+        }
+        return endpoint;
+    }
+
+    /**
+     * Starts the shard threads and sends every conversation's first message.
+     */
+    public void start() {
+        completion = new CountDownLatch(initiators.size());
+        running = true;
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+        for (int i = 0; i < initiators.size(); i++) {
+            Endpoint responder = initiators.get(i).peer;
+            responder.shard.external.add(new Delivery(responder, firstMessages.get(i)));
+            responder.shard.wake();
+        }
+    }
+
+    /**
+     * @return true if every conversation completed within the timeout
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return completion.await(timeout, unit);
+    }
+
+    /**
+     * @return index of the shard owning the player
+     */
+    public int shardOf(String playerId) {
+        // Mixed so ids differing by a suffix (Player1-7, Player2-7) do not land on shards a fixed distance apart
+        int hash = playerId.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return messages handed to a player on the same shard
+     */
+    public long getLocalHandoffs() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.localHandoffs;
+        }
+        return total;
+    }
+
+    /**
+     * @return messages passed through a shard-to-shard ring
+     */
+    public long getCrossShardMessages() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.crossShardMessages;
+        }
+        return total;
+    }
+
+    /**
+     * Stops the shard threads; conversations still running are abandoned.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException interrupExp) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static final class Endpoint {
+
+        private final Handler handler;
+        private final Shard shard;
+        private Endpoint peer;
+        private boolean finished; // owning shard thread only
+
+        private Endpoint(Handler handler, Shard shard) {
+            this.handler = handler;
+            this.shard = shard;
+        }
+    }
+
+    // First messages only, they come from the starting thread rather than a shard
+    private record Delivery(Endpoint target, String message) {
+    }
+
+    private final class Shard implements Runnable, SpscRing.Consumer<Endpoint> {
+
+        private final int index;
+        private final Thread thread;
+        private final SpscRing<Endpoint>[] inboxes; // indexed by source shard, the own slot is unused
+        private final Queue<Delivery> external = new ConcurrentLinkedQueue<>();
+        private volatile boolean parked;
+
+        // Shard thread only
+        private final ArrayDeque<Endpoint> localTargets = new ArrayDeque<>();
+        private final ArrayDeque<String> localMessages = new ArrayDeque<>();
+        private final ArrayDeque<Endpoint>[] overflowTargets; // indexed by target shard, used while its ring is full
+        private final ArrayDeque<String>[] overflowMessages;
+        private int overflowCount;
+
+        // Written by the shard thread, read after completion
+        private volatile long localHandoffs;
+        private volatile long crossShardMessages;
+
+        @SuppressWarnings("unchecked")
+        private Shard(int index, int shardCount, int ringCapacity) {
+            this.index = index;
+            this.inboxes = new SpscRing[shardCount];
+            this.overflowTargets = new ArrayDeque[shardCount];
+            this.overflowMessages = new ArrayDeque[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                if (i != index) {
+                    inboxes[i] = new SpscRing<>(ringCapacity);
+                    overflowTargets[i] = new ArrayDeque<>();
+                    overflowMessages[i] = new ArrayDeque<>();
+                }
+            }
+            this.thread = new Thread(this, "shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idleSpins = 0;
+            while (running) {
+                int work = drainLocal() + drainExternal() + drainInboxes() + flushOverflow();
+                if (work > 0) {
+                    idleSpins = 0;
+                } else if (idleSpins++ < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    idle();
+                    idleSpins = 0;
+                }
+            }
+        }
+
+        // Only the messages present on entry, so a same-shard ping-pong cannot starve the inboxes
+        private int drainLocal() {
+            int count = Math.min(localTargets.size(), DRAIN_BATCH);
+            for (int i = 0; i < count; i++) {
+                accept(localTargets.poll(), localMessages.poll());
+            }
+            return count;
+        }
+
+        private int drainExternal() {
+            int count = 0;
+            Delivery delivery;
+            while ((delivery = external.poll()) != null) {
+                accept(delivery.target(), delivery.message());
+                count++;
+            }
+            return count;
+        }
+
+        private int drainInboxes() {
+            int count = 0;
+            for (SpscRing<Endpoint> inbox : inboxes) {
+                if (inbox != null) {
+                    count += inbox.drain(this, DRAIN_BATCH);
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void accept(Endpoint target, String message) {
+            if (target.finished) return;
+
+            String reply = target.handler.onMessage(message);
+            if (reply == null) {
+                target.finished = true;
+                completion.countDown();
+                return;
+            }
+            route(target.peer, reply);
+        }
+
+        private void route(Endpoint target, String message) {
+            Shard destination = target.shard;
+            if (destination == this) {
+                localTargets.add(target);
+                localMessages.add(message);
+                localHandoffs++;
+                return;
+            }
+            crossShardMessages++;
+            int slot = destination.index;
+            // Keep order behind anything already waiting for this shard
+            if (overflowTargets[slot].isEmpty() && destination.inboxes[index].offer(target, message)) {
+                destination.wake();
+                return;
+            }
+            overflowTargets[slot].add(target);
+            overflowMessages[slot].add(message);
+            overflowCount++;
+        }
+
+        private int flushOverflow() {
+            if (overflowCount == 0) return 0;
+
+            int moved = 0;
+            for (int slot = 0; slot < overflowTargets.length; slot++) {
+                ArrayDeque<Endpoint> targets = overflowTargets[slot];
+                if (targets == null || targets.isEmpty()) continue;
+
+                SpscRing<Endpoint> ring = shards[slot].inboxes[index];
+                while (!targets.isEmpty() && ring.offer(targets.peek(), overflowMessages[slot].peek())) {
+                    targets.poll();
+                    overflowMessages[slot].poll();
+                    moved++;
+                }
+                shards[slot].wake();
+            }
+            overflowCount -= moved;
+            return moved;
+        }
+
+        private void idle() {
+            parked = true;
+            if (hasWork()) {
+                parked = false;
+                return;
+            }
+            // A full ring frees up without anybody waking this shard, so only park briefly while holding overflow
+            if (overflowCount > 0) {
+                LockSupport.parkNanos(this, OVERFLOW_RETRY_NANOS);
+            } else {
+                LockSupport.park(this);
+            }
+            parked = false;
+        }
+
+        private boolean hasWork() {
+            if (!localTargets.isEmpty() || !external.isEmpty() || !running) return true;
+            for (SpscRing<Endpoint> inbox : inboxes) {
+                if (inbox != null && !inbox.isEmpty()) return true;
+            }
+            return false;
+        }
+
+        private void wake() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.playercommunication.shard;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Bounded single-producer single-consumer ring carrying (target, message) pairs between two shard threads.
+ * No locks and no per-message allocation: the producer publishes with one volatile write of the tail,
+ * the consumer releases slots with one volatile write of the head, and each side caches the other's index.
+ */
+final class SpscRing<T> {
+
+    /**
+     * Receives drained entries on the consumer thread.
+     */
+    interface Consumer<T> {
+
+        void accept(T target, String message);
+    }
+
+    private final Object[] targets;
+    private final String[] messages;
+    private final int mask;
+
+    private volatile long head; // next slot to consume, written by the consumer
+    private volatile long tail; // next slot to fill, written by the producer
+    private long cachedHead; // producer only
+
+    /**
+     * @param capacity Number of slots, a power of two
+     */
+    SpscRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.targets = new Object[capacity];
+        this.messages = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Producer thread only.
+     * @return false if the ring is full
+     */
+    boolean offer(T target, String message) {
+        long current = tail;
+        if (current - cachedHead > mask) {
+            cachedHead = head;
+            if (current - cachedHead > mask) return false;
+        }
+        int slot = (int) current & mask;
+        targets[slot] = target;
+        messages[slot] = message;
+        tail = current + 1; // volatile write publishes the slot
+        return true;
+    }
+
+    /**
+     * Consumer thread only.
+     * @return entries handed to the consumer
+     */
+    @SuppressWarnings("unchecked")
+    int drain(Consumer<T> consumer, int maxEntries) {
+        long current = head;
+        int count = (int) Math.min(tail - current, maxEntries);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) (current + i) & mask;
+            T target = (T) targets[slot];
+            String message = messages[slot];
+            targets[slot] = null;
+            messages[slot] = null;
+            consumer.accept(target, message);
+        }
+        if (count > 0) {
+            head = current + count; // volatile write releases the slots
+        }
+        return count;
+    }
+
+    boolean isEmpty() {
+        return head == tail;
+    }
+
+}
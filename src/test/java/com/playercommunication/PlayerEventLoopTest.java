@@ -0,0 +1,89 @@
+package com.playercommunication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.playercommunication.channel.NetworkChannel;
+import com.playercommunication.channel.SameProcessChannel;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Unit tests for PlayerEventLoop using JUnit 5.
+ * Tests cover many in-process pairs stepped by one thread and a pair over the NIO transport.
+ */
+public class PlayerEventLoopTest {
+
+    private static final int TEST_PORT = 19390;
+
+    @Test
+    @DisplayName("One thread completes many in-process conversations")
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testManyPairsOnOneThread() {
+        int pairs = 1000;
+        List<Player> initiators = new ArrayList<>();
+        List<CompletableFuture<Void>> conversations = new ArrayList<>();
+
+        try (PlayerEventLoop eventLoop = new PlayerEventLoop("test-player-loop")) {
+            for (int i = 0; i < pairs; i++) {
+                BlockingQueue<String> initiatorQueue = new ArrayBlockingQueue<>(4);
+                BlockingQueue<String> responderQueue = new ArrayBlockingQueue<>(4);
+                SameProcessChannel initiatorChannel = new SameProcessChannel(initiatorQueue, responderQueue);
+                SameProcessChannel responderChannel = new SameProcessChannel(responderQueue, initiatorQueue);
+                SameProcessChannel.connect(initiatorChannel, responderChannel);
+
+                Player initiator = new Player("P1-" + i, initiatorChannel, true, "Chit Chat");
+                initiators.add(initiator);
+                conversations.add(eventLoop.register(initiator).whenComplete((result, failure) -> initiatorChannel.shutdown()));
+                conversations.add(eventLoop.register(new Player("P2-" + i, responderChannel, false, null)));
+            }
+            CompletableFuture.allOf(conversations.toArray(new CompletableFuture<?>[0])).join();
+        }
+        for (Player initiator : initiators) {
+            assertTrue(initiator.isCompleted());
+            assertEquals(10, initiator.getSentCount());
+            assertEquals(10, initiator.getReceivedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Players over the NIO transport are stepped when their socket is readable")
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testNetworkPair() throws Exception {
+        CompletableFuture<NetworkChannel> server = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new NetworkChannel("Server", TEST_PORT);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        NetworkChannel clientChannel = new NetworkChannel("Client", "localhost", TEST_PORT);
+        NetworkChannel serverChannel = server.join();
+
+        Player initiator = new Player("P1", clientChannel, true, "Chit Chat");
+        Player responder = new Player("P2", serverChannel, false, null);
+        try (PlayerEventLoop eventLoop = new PlayerEventLoop("test-player-loop")) {
+            CompletableFuture<Void> initiatorDone = eventLoop.register(initiator)
+                    .whenComplete((result, failure) -> clientChannel.shutdown());
+            CompletableFuture<Void> responderDone = eventLoop.register(responder);
+
+            initiatorDone.get(5, TimeUnit.SECONDS);
+            responderDone.get(5, TimeUnit.SECONDS);
+        } finally {
+            serverChannel.shutdown();
+        }
+        assertEquals(10, initiator.getReceivedCount());
+        assertEquals(10, responder.getReceivedCount());
+    }
+}
@@ -3,6 +3,8 @@ package com.playercommunication;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -18,6 +20,8 @@ import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 import com.playercommunication.channel.MessageChannel;
+import com.playercommunication.message.MessageCodec;
+import com.playercommunication.message.MessageFlyweight;
 
 /**
  * @author Tharmaraj Marimuthu
@@ -129,4 +133,49 @@ public class PlayerTest {
         
         assertFalse(playerThread.isAlive());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("State machine replies without touching the channel and the initiator completes after 10 replies")
+    void testInitiatorStateMachine() {
+        assertEquals("Chit Chat", intiatorPlayer.start());
+
+        for (int i = 1; i < 10; i++) {
+            assertEquals("Reply" + (i + 1), intiatorPlayer.onMessage("Reply"));
+            assertFalse(intiatorPlayer.isCompleted());
+        }
+        assertNull(intiatorPlayer.onMessage("last"));
+        assertTrue(intiatorPlayer.isCompleted());
+        assertEquals(10, intiatorPlayer.getSentCount());
+        assertEquals(10, intiatorPlayer.getReceivedCount());
+        Mockito.verifyNoInteractions(mockChannel);
+    }
+
+    @Test
+    @DisplayName("Responder state machine has no first message and appends its sent count")
+    void testResponderStateMachine() {
+        assertNull(responderPlayer.start());
+        assertEquals("Chit Chat1", responderPlayer.onMessage("Chit Chat"));
+        assertEquals("Chit Chat122", responderPlayer.onMessage("Chit Chat12"));
+        assertFalse(responderPlayer.isCompleted());
+    }
+
+    @Test
+    @DisplayName("Binary format carries the same text as payload with the sent count in the header")
+    void testBinaryStateMachine() {
+        Player initiator = new Player("Player1", mockChannel, true, "Chit Chat", true);
+        Player responder = new Player("Player2", mockChannel, false, null, true);
+        MessageCodec codec = new MessageCodec();
+
+        String first = initiator.start();
+        MessageFlyweight decoded = codec.read(first);
+        assertEquals("Chit Chat", MessageCodec.payloadText(decoded));
+        assertEquals(1, decoded.getSequence());
+        assertEquals("Player1".hashCode(), decoded.getSenderId());
+        assertTrue(decoded.hasFlag(MessageFlyweight.FLAG_FIRST));
+
+        decoded = codec.read(responder.onMessage(first));
+        assertEquals("Chit Chat1", MessageCodec.payloadText(decoded));
+        assertEquals(1, decoded.getSequence());
+        assertEquals("Player2".hashCode(), decoded.getSenderId());
+    }
+}
@@ -0,0 +1,345 @@
+package com.playercommunication.channel;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.playercommunication.mesh.MeshNode;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Allocation regression tests for the per-message path of every MessageChannel and interceptor stage.
+ * A steady-state exchange runs on the test thread; the bytes it allocates, plus those of the transport's
+ * worker threads (network event loop, timer, mesh link readers), are read from com.sun.management.ThreadMXBean.
+ * Each transport has a budget per message, so an added String.format, boxed counter or wrapper object on the
+ * hot path fails the build wherever it runs. Budgets leave headroom for JIT and JDK variance; lower them when
+ * the path gets leaner.
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARMUP_MESSAGES = 20_000;
+    private static final int MEASURED_MESSAGES = 20_000;
+    private static final String MESSAGE = "Chit Chat12345";
+    private static final int BURST = 64; // messages per exchange for transports that hand over on a timer tick
+    private static final List<String> WORKER_THREAD_PREFIXES =
+            List.of("network-event-loop", "hashed-wheel-timer", "mesh-link-", "emulated-link-delivery");
+
+    // Bytes per message allocated by the sending and receiving calls together
+    private static final long SAME_PROCESS_BUDGET = 16;
+    private static final long BROADCAST_BUDGET = 16;
+    private static final long NETWORK_BUDGET = 384; // frame buffer and retained copy on send, decoded String and acks on receive
+    private static final long MULTICAST_BUDGET = 768; // packet on send, source address and decoded String on the loop thread
+    private static final long EMULATED_LINK_BUDGET = 256; // transit entry and its timer slot, queue nodes
+    private static final long METRICS_STAGE_BUDGET = 16;
+    private static final long COMPRESSION_STAGE_BUDGET = 16; // below the threshold nothing is deflated
+    private static final long TRACING_STAGE_BUDGET = 4096; // formats a line per message, that is its job
+    private static final long MESH_LOCAL_BUDGET = 64; // the completed send future
+    private static final long MESH_REMOTE_BUDGET = 896; // envelope on send, payload substring on the link reader
+
+    private static com.sun.management.ThreadMXBean threadBean;
+
+    private MessageChannel firstChannel;
+    private MessageChannel secondChannel;
+    private final List<MeshNode> meshNodes = new ArrayList<>();
+
+    /**
+     * Messages sent and received, one unless the test says otherwise. Must not allocate anything itself.
+     */
+    private interface Exchange {
+
+        void run() throws Exception;
+    }
+
+    @BeforeAll
+    static void enableAllocationCounting() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "Thread allocation counters not available on this JVM");
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "Thread allocation counters not supported");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (firstChannel != null) firstChannel.shutdown();
+        if (secondChannel != null) secondChannel.shutdown();
+        List<CompletableFuture<Void>> closing = new ArrayList<>();
+        for (MeshNode node : meshNodes) {
+            closing.add(CompletableFuture.runAsync(node::close)); // each waits for the other's bye
+        }
+        for (CompletableFuture<Void> close : closing) {
+            close.get(15, TimeUnit.SECONDS);
+        }
+    }
+
+    // Linked in-process pair the stage tests wrap
+    private static SameProcessChannel[] linkedPair(int capacity) {
+        BlockingQueue<String> firstQueue = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<String> secondQueue = new ArrayBlockingQueue<>(capacity);
+        SameProcessChannel first = new SameProcessChannel(firstQueue, secondQueue, 0);
+        SameProcessChannel second = new SameProcessChannel(secondQueue, firstQueue, 0);
+        SameProcessChannel.connect(first, second);
+        return new SameProcessChannel[] {first, second};
+    }
+
+    @Test
+    @DisplayName("SameProcessChannel stays within its allocation budget per message")
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testSameProcessChannelBudget() throws Exception {
+        BlockingQueue<String> firstQueue = new ArrayBlockingQueue<>(16);
+        BlockingQueue<String> secondQueue = new ArrayBlockingQueue<>(16);
+        SameProcessChannel first = new SameProcessChannel(firstQueue, secondQueue, 0);
+        SameProcessChannel second = new SameProcessChannel(secondQueue, firstQueue, 0);
+        SameProcessChannel.connect(first, second);
+        firstChannel = first;
+        secondChannel = second;
+
+        assertWithinBudget("SameProcessChannel", SAME_PROCESS_BUDGET, () -> {
+            first.sendMessage(MESSAGE);
+            second.receiveMessage();
+        });
+    }
+
+    @Test
+    @DisplayName("BroadcastChannel stays within its allocation budget per message")
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testBroadcastChannelBudget() throws Exception {
+        BroadcastRing ring = new BroadcastRing(1024);
+        BlockingQueue<String> replyQueue = new ArrayBlockingQueue<>(1);
+        BroadcastChannel subscriber = BroadcastChannel.subscriber(ring, replyQueue);
+        BroadcastChannel publisher = BroadcastChannel.publisher(ring, replyQueue);
+        firstChannel = publisher;
+        secondChannel = subscriber;
+
+        assertWithinBudget("BroadcastChannel", BROADCAST_BUDGET, () -> {
+            publisher.sendMessage(MESSAGE);
+            subscriber.sendMessage(subscriber.receiveMessage());
+            publisher.receiveMessage();
+        });
+    }
+
+    @Test
+    @DisplayName("NetworkChannel stays within its allocation budget per message")
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testNetworkChannelBudget() throws Exception {
+        int port = 19490;
+        CompletableFuture<NetworkChannel> server = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new NetworkChannel("Server", port);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        NetworkChannel client = new NetworkChannel("Client", "localhost", port); // retries until the server listens
+        NetworkChannel receiver = server.get(10, TimeUnit.SECONDS); // accepted
+        firstChannel = client;
+        secondChannel = receiver;
+
+        assertWithinBudget("NetworkChannel", NETWORK_BUDGET, () -> {
+            client.sendMessage(MESSAGE);
+            receiver.receiveMessage();
+        });
+    }
+
+    @Test
+    @DisplayName("MulticastGroupChannel stays within its allocation budget per message")
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testMulticastGroupChannelBudget() throws Exception {
+        MulticastGroupChannel sender = new MulticastGroupChannel("Player1", "239.1.2.3", 19491);
+        MulticastGroupChannel receiver = new MulticastGroupChannel("Player2", "239.1.2.3", 19491);
+        firstChannel = sender;
+        secondChannel = receiver;
+
+        assertWithinBudget("MulticastGroupChannel", MULTICAST_BUDGET, () -> {
+            sender.sendMessage(MESSAGE);
+            receiver.receiveMessage();
+        });
+    }
+
+    @Test
+    @DisplayName("EmulatedLinkChannel stays within its allocation budget per message")
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void testEmulatedLinkChannelBudget() throws Exception {
+        SameProcessChannel[] pair = linkedPair(BURST);
+        EmulatedLinkChannel link = new EmulatedLinkChannel(pair[0], 0, 0, 0, 0, 0, BURST);
+        firstChannel = link;
+        secondChannel = pair[1];
+
+        assertWithinBudget("EmulatedLinkChannel", EMULATED_LINK_BUDGET, BURST, () -> {
+            for (int i = 0; i < BURST; i++) {
+                link.sendMessage(MESSAGE);
+            }
+            for (int i = 0; i < BURST; i++) {
+                pair[1].receiveMessage();
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("MetricsChannel stage stays within its allocation budget per message")
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testMetricsStageBudget() throws Exception {
+        SameProcessChannel[] pair = linkedPair(16);
+        MessageChannel sender = new MetricsChannel(pair[0], "Player1");
+        MessageChannel receiver = new MetricsChannel(pair[1], "Player2");
+        firstChannel = pair[0];
+        secondChannel = pair[1];
+
+        assertWithinBudget("MetricsChannel", METRICS_STAGE_BUDGET, () -> {
+            sender.sendMessage(MESSAGE);
+            receiver.receiveMessage();
+        });
+    }
+
+    @Test
+    @DisplayName("CompressionChannel stage stays within its allocation budget for messages below its threshold")
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testCompressionStageBudget() throws Exception {
+        SameProcessChannel[] pair = linkedPair(16);
+        MessageChannel sender = new CompressionChannel(pair[0], 256);
+        MessageChannel receiver = new CompressionChannel(pair[1], 256);
+        firstChannel = pair[0];
+        secondChannel = pair[1];
+
+        assertWithinBudget("CompressionChannel", COMPRESSION_STAGE_BUDGET, () -> {
+            sender.sendMessage(MESSAGE);
+            receiver.receiveMessage();
+        });
+    }
+
+    @Test
+    @DisplayName("TracingChannel stage stays within its allocation budget per message")
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testTracingStageBudget() throws Exception {
+        SameProcessChannel[] pair = linkedPair(16);
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        MessageChannel sender = new TracingChannel(pair[0], "Player1", discard);
+        MessageChannel receiver = new TracingChannel(pair[1], "Player2", discard);
+        firstChannel = pair[0];
+        secondChannel = pair[1];
+
+        assertWithinBudget("TracingChannel", TRACING_STAGE_BUDGET, () -> {
+            sender.sendMessage(MESSAGE);
+            receiver.receiveMessage();
+        });
+    }
+
+    @Test
+    @DisplayName("MeshChannel between two players of one node stays within its allocation budget per message")
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testMeshLocalBudget() throws Exception {
+        MeshNode node = new MeshNode(MeshNode.parseNodes("localhost:19500"), 0, 16);
+        meshNodes.add(node);
+        MessageChannel sender = node.channelFor("A", "B");
+        MessageChannel receiver = node.channelFor("B", "A");
+
+        assertWithinBudget("MeshChannel (local)", MESH_LOCAL_BUDGET, () -> {
+            sender.sendMessage(MESSAGE);
+            receiver.receiveMessage();
+        });
+    }
+
+    @Test
+    @DisplayName("MeshChannel across a node link stays within its allocation budget per message")
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void testMeshRemoteBudget() throws Exception {
+        List<InetSocketAddress> addresses = MeshNode.parseNodes("localhost:19510,localhost:19520");
+        MeshNode first = new MeshNode(addresses, 0, 16);
+        MeshNode second = new MeshNode(addresses, 1, 16);
+        String firstPlayer = playerOn(first, "A-");
+        String secondPlayer = playerOn(second, "B-");
+        MessageChannel sender = first.channelFor(firstPlayer, secondPlayer);
+        MessageChannel receiver = second.channelFor(secondPlayer, firstPlayer);
+        CompletableFuture<Void> accepting = CompletableFuture.runAsync(() -> {
+            try {
+                second.start();
+            } catch (Exception startExp) {
+                throw new IllegalStateException(startExp);
+            }
+        });
+        first.start();
+        accepting.get(10, TimeUnit.SECONDS);
+        meshNodes.add(first);
+        meshNodes.add(second);
+
+        assertWithinBudget("MeshChannel (remote)", MESH_REMOTE_BUDGET, () -> {
+            sender.sendMessage(MESSAGE);
+            receiver.receiveMessage();
+        });
+    }
+
+    private static String playerOn(MeshNode node, String prefix) {
+        for (int i = 0; ; i++) {
+            if (node.isLocal(prefix + i)) return prefix + i;
+        }
+    }
+
+    private static void assertWithinBudget(String transport, long budgetBytes, Exchange exchange) throws Exception {
+        assertWithinBudget(transport, budgetBytes, 1, exchange);
+    }
+
+    private static void assertWithinBudget(String transport, long budgetBytes, int messagesPerExchange,
+            Exchange exchange) throws Exception {
+        for (int i = 0; i < WARMUP_MESSAGES; i += messagesPerExchange) {
+            exchange.run();
+        }
+        long[] threadIds = measuredThreads();
+        long before = allocatedBytes(threadIds);
+        for (int i = 0; i < MEASURED_MESSAGES; i += messagesPerExchange) {
+            exchange.run();
+        }
+        long perMessage = (allocatedBytes(threadIds) - before) / MEASURED_MESSAGES;
+
+        System.out.println(transport + " allocates " + perMessage + " bytes per message (budget " + budgetBytes + ")");
+        assertTrue(perMessage <= budgetBytes, transport + " allocates " + perMessage
+                + " bytes per message, budget is " + budgetBytes);
+    }
+
+    // The test thread and every live worker thread of the transports
+    private static long[] measuredThreads() {
+        List<Long> ids = new ArrayList<>();
+        ids.add(Thread.currentThread().threadId());
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            for (String prefix : WORKER_THREAD_PREFIXES) {
+                if (thread.getName().startsWith(prefix)) ids.add(thread.threadId());
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long allocatedBytes(long[] threadIds) {
+        long total = 0;
+        for (long bytes : threadBean.getThreadAllocatedBytes(threadIds)) {
+            if (bytes > 0) total += bytes; // -1 for a thread that has ended
+        }
+        return total;
+    }
+
+    @Test
+    @DisplayName("Allocation counter sees a per-message allocation")
+    void testCounterDetectsAllocation() throws Exception {
+        long threadId = Thread.currentThread().threadId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        StringBuilder sink = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sink.append(String.format("%d", i)); // the kind of regression the budgets catch
+        }
+        assertTrue(threadBean.getThreadAllocatedBytes(threadId) - before >= 1000 * 16);
+    }
+}
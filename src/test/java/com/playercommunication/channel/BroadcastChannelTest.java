@@ -0,0 +1,133 @@
+package com.playercommunication.channel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Unit tests for BroadcastRing and BroadcastChannel using JUnit 5.
+ * Tests cover fan-out to independent cursors, gating by the slowest reader,
+ * closing the ring, and a publisher collecting one reply per subscriber.
+ */
+public class BroadcastChannelTest {
+
+    @Test
+    @DisplayName("Ring capacity must be a power of two")
+    void testRingCapacityValidation() {
+        assertThrows(IllegalArgumentException.class, () -> new BroadcastRing(12));
+    }
+
+    @Test
+    @DisplayName("Every cursor reads every published message in order")
+    void testFanOutToIndependentCursors() {
+        BroadcastRing ring = new BroadcastRing(8);
+        BroadcastRing.Cursor first = ring.newCursor();
+        BroadcastRing.Cursor second = ring.newCursor();
+
+        ring.publish("1");
+        ring.publish("2");
+
+        assertEquals("1", first.poll());
+        assertEquals("2", first.poll());
+        assertNull(first.poll());
+        assertEquals("1", second.poll());
+        assertEquals("2", second.poll());
+    }
+
+    @Test
+    @DisplayName("Slowest cursor gates the publisher, a closed cursor stops gating")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testSlowestCursorGatesPublisher() throws InterruptedException {
+        BroadcastRing ring = new BroadcastRing(2);
+        BroadcastRing.Cursor slow = ring.newCursor();
+        ring.publish("1");
+        ring.publish("2");
+
+        AtomicBoolean published = new AtomicBoolean();
+        Thread publisher = new Thread(() -> published.set(ring.publish("3")));
+        publisher.start();
+        Thread.sleep(100);
+        assertFalse(published.get(), "Publisher overwrote a slot the reader had not consumed");
+
+        assertEquals("1", slow.poll());
+        publisher.join(1000);
+        assertTrue(published.get());
+
+        slow.close();
+        assertTrue(ring.publish("4"));
+        assertTrue(ring.publish("5"));
+    }
+
+    @Test
+    @DisplayName("Blocked reader is released with null when the ring is closed")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testCloseReleasesBlockedReader() throws InterruptedException {
+        BroadcastRing ring = new BroadcastRing(4);
+        BroadcastRing.Cursor cursor = ring.newCursor();
+        CountDownLatch released = new CountDownLatch(1);
+
+        Thread reader = new Thread(() -> {
+            try {
+                assertEquals("1", cursor.take());
+                assertNull(cursor.take());
+                released.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        reader.start();
+        ring.publish("1");
+        Thread.sleep(50);
+        ring.close();
+
+        assertTrue(released.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Publisher receives after every subscriber replied")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testPublisherCollectsOneReplyPerSubscriber() throws InterruptedException {
+        int subscriberCount = 3;
+        BroadcastRing ring = new BroadcastRing(16);
+        BlockingQueue<String> replyQueue = new ArrayBlockingQueue<>(subscriberCount);
+
+        Thread[] subscribers = new Thread[subscriberCount];
+        for (int i = 0; i < subscriberCount; i++) {
+            BroadcastChannel subscriber = BroadcastChannel.subscriber(ring, replyQueue);
+            subscribers[i] = new Thread(() -> {
+                String message;
+                while ((message = subscriber.receiveMessage()) != null) {
+                    subscriber.sendMessage(message + "1");
+                }
+            });
+            subscribers[i].start();
+        }
+        BroadcastChannel publisher = BroadcastChannel.publisher(ring, replyQueue);
+
+        publisher.sendMessage("Chit Chat");
+        assertEquals("Chit Chat1", publisher.receiveMessage());
+        assertTrue(replyQueue.isEmpty(), "Replies left behind for the next round");
+
+        publisher.sendMessage("Chit Chat12");
+        assertEquals("Chit Chat121", publisher.receiveMessage());
+
+        publisher.shutdown();
+        for (Thread subscriber : subscribers) {
+            subscriber.join(1000);
+            assertFalse(subscriber.isAlive());
+        }
+    }
+}
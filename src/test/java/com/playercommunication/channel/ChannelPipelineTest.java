@@ -0,0 +1,188 @@
+package com.playercommunication.channel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.playercommunication.config.ConfigSnapshot;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Tests for ChannelPipeline assembly and the interceptor stages over a linked SameProcessChannel pair.
+ */
+public class ChannelPipelineTest {
+
+    private SameProcessChannel first;
+    private SameProcessChannel second;
+
+    @BeforeEach
+    void setUp() {
+        BlockingQueue<String> firstQueue = new ArrayBlockingQueue<>(16);
+        BlockingQueue<String> secondQueue = new ArrayBlockingQueue<>(16);
+        first = new SameProcessChannel(firstQueue, secondQueue);
+        second = new SameProcessChannel(secondQueue, firstQueue);
+        SameProcessChannel.connect(first, second);
+    }
+
+    @Test
+    @DisplayName("With every stage disabled the transport itself is returned")
+    void testDisabledPipelineReturnsTransport() {
+        assertSame(first, ChannelPipeline.assemble(first, "Player1", ConfigSnapshot.from(new Properties())));
+    }
+
+    @Test
+    @DisplayName("Enabled stages are stacked with tracing outermost and compression next to the transport")
+    void testStageOrder() {
+        Properties properties = new Properties();
+        properties.setProperty("pipeline.metrics", "true");
+        properties.setProperty("pipeline.compression", "true");
+        properties.setProperty("pipeline.tracing", "true");
+
+        MessageChannel channel = ChannelPipeline.assemble(first, "Player1", ConfigSnapshot.from(properties));
+
+        TracingChannel tracing = assertInstanceOf(TracingChannel.class, channel);
+        MetricsChannel metrics = assertInstanceOf(MetricsChannel.class, tracing.delegate);
+        CompressionChannel compression = assertInstanceOf(CompressionChannel.class, metrics.delegate);
+        assertSame(first, compression.delegate);
+    }
+
+    @Test
+    @DisplayName("Compression shrinks large messages on the wire and restores them on the other end")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testCompressionRoundTrip() throws IOException {
+        MessageChannel sender = new CompressionChannel(first, 64);
+        MessageChannel receiver = new CompressionChannel(second, 64);
+        String large = "Chit_Chat".repeat(100);
+        String marked = "\u0001starts with the marker";
+
+        sender.sendMessage(large);
+        String onTheWire = second.receiveMessage();
+        assertTrue(onTheWire.length() < large.length() / 4, "Not compressed: " + onTheWire.length());
+        assertEquals(large, new CompressionChannel(second, 64).inbound(onTheWire));
+
+        sender.sendMessage("short");
+        sender.sendMessage(marked);
+        sender.sendMessage(large);
+        List<String> received = new ArrayList<>();
+        receiver.receiveBatch(received, 16);
+        assertEquals(List.of("short", marked, large), received);
+    }
+
+    @Test
+    @DisplayName("Metrics and tracing see every message in both directions")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testMetricsAndTracing() throws Exception {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        MetricsChannel metrics = new MetricsChannel(first, "Player1");
+        MessageChannel channel = new TracingChannel(metrics, "Player1", new PrintStream(trace, true, StandardCharsets.UTF_8));
+
+        channel.sendMessage("ping");
+        assertEquals("ping", second.receiveMessage());
+        second.sendMessage("pong");
+        assertEquals("pong", channel.receiveAsync().get(1, TimeUnit.SECONDS));
+
+        assertEquals(1, metrics.getMetrics().getMessagesSent());
+        assertEquals(1, metrics.getMetrics().getMessagesReceived());
+        String output = trace.toString(StandardCharsets.UTF_8);
+        assertTrue(output.contains("[trace Player1] -> 4 chars"), output);
+        assertTrue(output.contains(": pong"), output);
+    }
+
+    @Test
+    @DisplayName("A timed out async receive on a stage does not swallow the next message")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testTimedOutReceiveIsWithdrawn() throws Exception {
+        MetricsChannel channel = new MetricsChannel(first, "Player1");
+        assertThrows(ExecutionException.class, () -> channel.receiveAsync(50, TimeUnit.MILLISECONDS).get());
+
+        second.sendMessage("m1");
+        second.sendMessage("m2");
+
+        assertEquals("m1", channel.receiveMessage());
+        assertEquals("m2", channel.receiveAsync().get(1, TimeUnit.SECONDS));
+        assertEquals(2, channel.getMetrics().getMessagesReceived());
+    }
+
+    @Test
+    @DisplayName("A message the wrapped channel handed over just as the receive was abandoned goes to the next one")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testAbandonedReceiveKeepsMessage() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return false; // already handing the message over
+            }
+        };
+        MessageChannel transport = new MessageChannel() {
+            @Override
+            public void sendMessage(String message) {
+            }
+
+            @Override
+            public String receiveMessage() {
+                return null;
+            }
+
+            @Override
+            public CompletableFuture<String> receiveAsync() {
+                return source;
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        MetricsChannel channel = new MetricsChannel(transport, "Player1");
+
+        channel.receiveAsync().cancel(false);
+        source.complete("late");
+
+        assertEquals("late", channel.receiveMessage());
+    }
+
+    @Test
+    @DisplayName("Compression counts UTF-8 bytes and fails the receive on corrupt or truncated input")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testCompressionBytesAndCorruptInput() throws Exception {
+        MessageChannel sender = new CompressionChannel(first, 64);
+        MessageChannel receiver = new CompressionChannel(second, 64);
+        String wide = "\u20ac".repeat(30); // 30 chars, 90 bytes
+
+        sender.sendMessage(wide);
+        String onTheWire = second.receiveMessage();
+        assertEquals('\u0001', onTheWire.charAt(0), "Not compressed: " + onTheWire);
+
+        first.sendMessage(onTheWire.substring(0, onTheWire.length() - 4)); // truncated
+        first.sendMessage("\u0001not base64!");
+        first.sendMessage("\u0001AAAA"); // Base64, but no deflate stream
+        first.sendMessage(onTheWire);
+        assertThrows(UncheckedIOException.class, receiver::receiveMessage);
+        ExecutionException receiveExp = assertThrows(ExecutionException.class,
+                () -> receiver.receiveAsync().get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, receiveExp.getCause());
+        assertThrows(UncheckedIOException.class, receiver::receiveMessage);
+        assertEquals(wide, receiver.receiveMessage());
+    }
+
+}
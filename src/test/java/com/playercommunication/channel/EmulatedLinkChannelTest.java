@@ -0,0 +1,192 @@
+package com.playercommunication.channel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Tests for EmulatedLinkChannel over a linked SameProcessChannel pair: delay, bandwidth pacing, loss,
+ * control ordering, the buffer limit and shutdown behind messages still in transit.
+ */
+public class EmulatedLinkChannelTest {
+
+    private SameProcessChannel sender;
+    private SameProcessChannel receiver;
+
+    @BeforeEach
+    void setUp() {
+        BlockingQueue<String> first = new ArrayBlockingQueue<>(64);
+        BlockingQueue<String> second = new ArrayBlockingQueue<>(64);
+        sender = new SameProcessChannel(first, second);
+        receiver = new SameProcessChannel(second, first);
+        SameProcessChannel.connect(sender, receiver);
+    }
+
+    @Test
+    @DisplayName("Messages arrive after the one-way delay and in send order despite jitter")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testDelayAndJitterKeepOrder() throws IOException {
+        EmulatedLinkChannel link = new EmulatedLinkChannel(sender, 50, 20, 0, 0, 0);
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            link.sendMessage("message" + i);
+        }
+
+        assertEquals("message0", receiver.receiveMessage());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30), "Arrived before delay - jitter");
+        for (int i = 1; i < 20; i++) {
+            assertEquals("message" + i, receiver.receiveMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Bandwidth cap paces a burst by its serialization time")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testBandwidthPacesBurst() throws IOException {
+        EmulatedLinkChannel link = new EmulatedLinkChannel(sender, 0, 0, 800, 0, 0); // 100 bytes per ms
+        String payload = "x".repeat(999); // 1000 bytes with framing, 10 ms each
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            link.sendMessage(payload);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50), "Send waited for the link");
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(payload, receiver.receiveMessage());
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(95), "Burst beat the bandwidth cap");
+    }
+
+    @Test
+    @DisplayName("Loss drops messages, or delivers them late when a re-send delay is set")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testLoss() throws IOException {
+        EmulatedLinkChannel dropping = new EmulatedLinkChannel(sender, 0, 0, 0, 100, 0);
+        dropping.sendMessage("lost");
+        assertEquals(1, dropping.getMessagesDropped());
+
+        EmulatedLinkChannel resending = new EmulatedLinkChannel(sender, 10, 0, 0, 100, 100);
+        long start = System.nanoTime();
+        resending.sendMessage("late");
+        assertEquals("late", receiver.receiveMessage(), "Dropped message was delivered");
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100), "Re-send delay not applied");
+        assertEquals(1, resending.getMessagesRetransmitted());
+    }
+
+    @Test
+    @DisplayName("Shutdown waits for messages in transit, then ends the peer's stream")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testShutdownBehindMessagesInTransit() throws IOException {
+        EmulatedLinkChannel link = new EmulatedLinkChannel(sender, 30, 0, 0, 0, 0);
+        link.sendMessage("1");
+        link.sendMessage("2");
+
+        link.shutdown();
+
+        assertEquals("1", receiver.receiveMessage());
+        assertEquals("2", receiver.receiveMessage());
+        assertNull(receiver.receiveMessage());
+        assertThrows(IOException.class, () -> link.sendMessage("late"));
+        assertTrue(link.sendAsync("late").isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("Control messages keep their order despite jitter and arrive before the shutdown")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testControlOrderAndShutdown() throws IOException {
+        EmulatedLinkChannel link = new EmulatedLinkChannel(sender, 20, 15, 0, 0, 0);
+        for (int i = 0; i < 50; i++) {
+            link.sendControl("control" + i);
+        }
+
+        link.shutdown();
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("control" + i, receiver.receiveMessage());
+        }
+        assertNull(receiver.receiveMessage());
+    }
+
+    @Test
+    @DisplayName("Full link buffer makes senders wait until deliveries free space")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testBufferLimitBackpressure() throws Exception {
+        EmulatedLinkChannel link = new EmulatedLinkChannel(sender, 50, 0, 0, 0, 0, 4);
+        for (int i = 0; i < 4; i++) {
+            link.sendMessage("message" + i);
+        }
+        CompletableFuture<Void> parked = link.sendAsync("message4");
+        long start = System.nanoTime();
+        link.sendMessage("message5"); // waits behind the parked async send
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40), "Send did not wait for space");
+        assertFalse(parked.isCompletedExceptionally());
+        for (int i = 0; i < 6; i++) {
+            assertEquals("message" + i, receiver.receiveMessage());
+        }
+        parked.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Wrapped channels without async sends still get every message, in order")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testDeliversOverBlockingOnlyChannel() throws Exception {
+        BlockingQueue<String> first = new ArrayBlockingQueue<>(4);
+        BlockingQueue<String> second = new ArrayBlockingQueue<>(4);
+        SameProcessChannel unlinked = new SameProcessChannel(first, second); // sendAsync not supported
+        SameProcessChannel reader = new SameProcessChannel(second, first);
+        EmulatedLinkChannel link = new EmulatedLinkChannel(unlinked, 5, 0, 0, 0, 0, 2);
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < 10; i++) {
+            last = link.sendAsync("message" + i); // more than the wrapped queue holds
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("message" + i, reader.receiveMessage());
+        }
+        last.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("A failed delivery fails its async send and every later send")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testDeliveryFailureSurfaces() throws Exception {
+        MessageChannel broken = new MessageChannel() {
+            @Override
+            public void sendMessage(String message) throws IOException {
+                throw new IOException("Connection reset");
+            }
+
+            @Override
+            public String receiveMessage() {
+                return null;
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        EmulatedLinkChannel link = new EmulatedLinkChannel(broken, 5, 0, 0, 0, 0);
+
+        CompletableFuture<Void> sent = link.sendAsync("message");
+        ExecutionException sendExp = assertThrows(ExecutionException.class, () -> sent.get(1, TimeUnit.SECONDS));
+        assertTrue(sendExp.getCause() instanceof IOException);
+        assertThrows(IOException.class, () -> link.sendMessage("later"));
+    }
+
+}
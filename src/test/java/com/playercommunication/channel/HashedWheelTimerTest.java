@@ -0,0 +1,82 @@
+package com.playercommunication.channel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Unit tests for HashedWheelTimer using JUnit 5.
+ * Tests cover expiry after the delay, cancellation, deadlines on futures
+ * and many timeouts spread over more than one wheel round.
+ */
+public class HashedWheelTimerTest {
+
+    private final HashedWheelTimer timer = HashedWheelTimer.shared();
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    @DisplayName("Timeout runs its task once the delay has passed")
+    void testTimeoutExpires() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long startNanos = System.nanoTime();
+
+        timer.newTimeout(fired::countDown, 20, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(20), "Fired before its deadline");
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    @DisplayName("Cancelled timeout never runs and cannot be cancelled twice")
+    void testCancelledTimeoutDoesNotRun() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        Thread.sleep(60);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    @DisplayName("orTimeout fails a pending future and leaves a completed one alone")
+    void testOrTimeout() throws Exception {
+        CompletableFuture<String> pending = timer.orTimeout(new CompletableFuture<>(), 20, TimeUnit.MILLISECONDS);
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> pending.get(1, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof TimeoutException);
+
+        CompletableFuture<String> completed = new CompletableFuture<>();
+        timer.orTimeout(completed, 20, TimeUnit.MILLISECONDS);
+        completed.complete("Chit Chat");
+        Thread.sleep(60);
+        assertEquals("Chit Chat", completed.get());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    @DisplayName("Thousands of timeouts beyond one wheel round all fire")
+    void testManyTimeoutsAcrossRounds() throws InterruptedException {
+        int count = 5000;
+        CountDownLatch fired = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            timer.newTimeout(fired::countDown, i % 700, TimeUnit.MILLISECONDS); // wheel covers 512 ms
+        }
+        assertTrue(fired.await(3, TimeUnit.SECONDS), fired.getCount() + " timeouts never fired");
+    }
+}
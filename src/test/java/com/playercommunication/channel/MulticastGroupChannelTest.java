@@ -0,0 +1,186 @@
+package com.playercommunication.channel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Unit tests for MulticastGroupChannel using JUnit 5.
+ * Tests cover fan-out to group members, gap detection with NAKs, repeated tail heartbeats,
+ * and retransmission or loss reports answered from the retention buffer.
+ */
+public class MulticastGroupChannelTest {
+
+    private static final int TEST_PORT_BASE = 19291;
+    private static final String TEST_GROUP = "239.1.2.3";
+
+    private static int portCounter = 0;
+    private int testPort;
+    private MulticastGroupChannel firstChannel;
+    private MulticastGroupChannel secondChannel;
+    private DatagramChannel rawChannel;
+
+    @BeforeEach
+    void setUp() {
+        firstChannel = null;
+        secondChannel = null;
+        rawChannel = null;
+        testPort = TEST_PORT_BASE + (portCounter++); // Separate group port per test
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (firstChannel != null) firstChannel.shutdown();
+        if (secondChannel != null) secondChannel.shutdown();
+        if (rawChannel != null) rawChannel.close();
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("One send reaches every other group member in order")
+    void testGroupDelivery() throws Exception {
+        firstChannel = new MulticastGroupChannel("Player1", TEST_GROUP, testPort);
+        secondChannel = new MulticastGroupChannel("Player2", TEST_GROUP, testPort);
+
+        firstChannel.sendMessage("1");
+        firstChannel.sendMessage("2");
+        firstChannel.sendMessage("3");
+
+        assertEquals("1", secondChannel.receiveMessage());
+        assertEquals("2", secondChannel.receiveMessage());
+        assertEquals("3", secondChannel.receiveMessage());
+
+        // Own messages are not looped back to the sender
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> firstChannel.receiveAsync(100, TimeUnit.MILLISECONDS).get());
+        assertTrue(exception.getCause() instanceof java.util.concurrent.TimeoutException);
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Timed out receiveAsync gives up its claim, the next receivers get every message in order")
+    void testReceiveAsyncTimeoutKeepsMessages() throws Exception {
+        firstChannel = new MulticastGroupChannel("Player1", TEST_GROUP, testPort);
+        secondChannel = new MulticastGroupChannel("Player2", TEST_GROUP, testPort);
+
+        assertThrows(ExecutionException.class, () -> secondChannel.receiveAsync(50, TimeUnit.MILLISECONDS).get());
+        firstChannel.sendAsync("1").get(1, TimeUnit.SECONDS);
+        firstChannel.sendAsync("2").get(1, TimeUnit.SECONDS);
+
+        assertEquals("1", secondChannel.receiveAsync().get(1, TimeUnit.SECONDS));
+        assertEquals("2", secondChannel.receiveMessage());
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Gap is NAKed and delivery resumes in order once the missing message arrives")
+    void testGapDetectionAndNak() throws Exception {
+        secondChannel = new MulticastGroupChannel("Player2", TEST_GROUP, testPort, 16);
+        rawChannel = openRawChannel();
+        InetSocketAddress group = new InetSocketAddress(TEST_GROUP, testPort);
+        int fakeSender = 42;
+
+        rawChannel.send(MulticastGroupChannel.dataPacket(fakeSender, 0, bytes("0")), group);
+        rawChannel.send(MulticastGroupChannel.dataPacket(fakeSender, 2, bytes("2")), group);
+        assertEquals("0", secondChannel.receiveMessage());
+
+        ByteBuffer nak = receiveRaw();
+        assertEquals(MulticastGroupChannel.TYPE_NAK, nak.get());
+        assertEquals(fakeSender, nak.getInt());
+        assertEquals(1, nak.getLong(), "NAK range start");
+        assertEquals(1, nak.getLong(), "NAK range end");
+
+        rawChannel.send(MulticastGroupChannel.dataPacket(fakeSender, 1, bytes("1")), group);
+        assertEquals("1", secondChannel.receiveMessage());
+        assertEquals("2", secondChannel.receiveMessage());
+        assertTrue(secondChannel.getMetrics().getNaksSent() >= 1);
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("NAK is answered with retained messages and a loss report for evicted ones")
+    void testRetransmitFromRetention() throws Exception {
+        firstChannel = new MulticastGroupChannel("Player1", TEST_GROUP, testPort, 2);
+        for (int i = 0; i < 4; i++) {
+            firstChannel.sendMessage("m" + i); // only m2 and m3 stay retained
+        }
+        rawChannel = openRawChannel();
+        rawChannel.send(MulticastGroupChannel.controlPacket(MulticastGroupChannel.TYPE_NAK, firstChannel.senderId(), 0, 3),
+                firstChannel.unicastAddress());
+
+        ByteBuffer lost = receiveRaw();
+        assertEquals(MulticastGroupChannel.TYPE_LOST, lost.get());
+        assertEquals(firstChannel.senderId(), lost.getInt());
+        assertEquals(0, lost.getLong());
+        assertEquals(1, lost.getLong());
+
+        for (int expected = 2; expected <= 3; expected++) {
+            ByteBuffer data = receiveRaw();
+            assertEquals(MulticastGroupChannel.TYPE_DATA, data.get());
+            assertEquals(firstChannel.senderId(), data.getInt());
+            assertEquals(expected, data.getLong());
+            assertEquals("m" + expected, StandardCharsets.UTF_8.decode(data).toString());
+        }
+        assertEquals(2, firstChannel.getMetrics().getRetransmits());
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Last sequence is heartbeated repeatedly after the final send, so one lost heartbeat is survivable")
+    void testTailHeartbeatRepeated() throws Exception {
+        InetAddress loopbackAddress = InetAddress.getLoopbackAddress();
+        InetAddress groupInet = InetAddress.getByName(TEST_GROUP);
+        rawChannel = DatagramChannel.open(StandardProtocolFamily.INET)
+                .setOption(StandardSocketOptions.SO_REUSEADDR, true)
+                .bind(new InetSocketAddress(testPort));
+        rawChannel.join(groupInet, NetworkInterface.getByInetAddress(loopbackAddress));
+        firstChannel = new MulticastGroupChannel("Player1", TEST_GROUP, testPort, 16);
+
+        firstChannel.sendMessage("last");
+
+        int heartbeats = 0;
+        while (heartbeats < 3) {
+            ByteBuffer packet = receiveRaw();
+            if (packet.get() != MulticastGroupChannel.TYPE_HEARTBEAT) continue;
+            assertEquals(firstChannel.senderId(), packet.getInt());
+            assertEquals(0, packet.getLong(), "Heartbeat announces the last sequence");
+            heartbeats++;
+        }
+    }
+
+    private DatagramChannel openRawChannel() throws IOException {
+        InetAddress loopbackAddress = InetAddress.getLoopbackAddress();
+        return DatagramChannel.open(StandardProtocolFamily.INET)
+                .setOption(StandardSocketOptions.IP_MULTICAST_IF, NetworkInterface.getByInetAddress(loopbackAddress))
+                .bind(new InetSocketAddress(loopbackAddress, 0));
+    }
+
+    private ByteBuffer receiveRaw() throws IOException {
+        ByteBuffer packet = ByteBuffer.allocate(1024);
+        rawChannel.receive(packet);
+        return packet.flip();
+    }
+
+    private static byte[] bytes(String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+}
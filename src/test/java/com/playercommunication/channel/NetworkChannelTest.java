@@ -2,13 +2,25 @@ package com.playercommunication.channel;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.AfterEach;
@@ -170,20 +182,24 @@ public class NetworkChannelTest {
     @Timeout(5)
     @DisplayName("connection nonexistent server should throw exception")
     void testShut() throws IOException, InterruptedException {
+        CompletableFuture<NetworkChannel> accepted = new CompletableFuture<>();
         serverThread = new Thread(() -> {
             try {
-                serverChannel = new NetworkChannel("TestServer", testPort);
-                Thread.sleep(3000);
+                accepted.complete(new NetworkChannel("TestServer", testPort));
             } catch (Exception e) {
-                e.printStackTrace();
+                accepted.completeExceptionally(e);
             }
         });
         serverThread.start();
 
-        Thread.sleep(200);
-
+        // The client retries until the server listens
         clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
-        
+        try {
+            serverChannel = accepted.get(2, TimeUnit.SECONDS); // accept may return after connect
+        } catch (ExecutionException | TimeoutException acceptExp) {
+            fail("Server did not accept: " + acceptExp);
+        }
+
         // Shut.down shoul not throw exception
         assertDoesNotThrow(() -> clientChannel.shutdown());
         assertDoesNotThrow(() -> serverChannel.shutdown());
@@ -283,4 +299,423 @@ public class NetworkChannelTest {
         assertDoesNotThrow(() -> clientChannel.sendMessage(null));
     }
 
+    @Test
+    @Timeout(5)
+    @DisplayName("Async send and receive complete without blocking the caller")
+    void testAsyncSendAndReceive() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        serverThread.join();
+
+        CompletableFuture<String> pending = serverChannel.receiveAsync();
+        assertFalse(pending.isDone(), "Nothing sent yet");
+
+        clientChannel.sendAsync(TEST_MESSAGE).get(1, TimeUnit.SECONDS);
+        assertEquals(TEST_MESSAGE, pending.get(1, TimeUnit.SECONDS));
+
+        CompletableFuture<String> reply = clientChannel.receiveAsync();
+        serverChannel.sendAsync("Server Message");
+        assertEquals("Server Message", reply.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Async receive times out and is completed with null after shutdown")
+    void testAsyncReceiveTimeoutAndShutdown() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        serverThread.join();
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> serverChannel.receiveAsync(50, TimeUnit.MILLISECONDS).get());
+        assertTrue(exception.getCause() instanceof TimeoutException);
+
+        CompletableFuture<String> pending = serverChannel.receiveAsync();
+        clientChannel.shutdown();
+        assertNull(pending.get(1, TimeUnit.SECONDS), "End of stream should complete with null");
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Batch sent with gathering writes is received in order")
+    void testSendAndReceiveBatch() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        serverThread.join();
+
+        List<String> sent = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sent.add(TEST_MESSAGE + i);
+        }
+        clientChannel.sendBatch(sent);
+
+        List<String> received = new ArrayList<>();
+        while (received.size() < sent.size()) {
+            assertTrue(serverChannel.receiveBatch(received, 64) > 0, "Stream ended early");
+        }
+        assertEquals(sent, received);
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Request/reply exchange is never held back by coalescing")
+    void testPingPongNotCoalesced() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        serverThread.join();
+        clientChannel.setMaxFlushDelayMicros(100_000);
+        serverChannel.setMaxFlushDelayMicros(100_000);
+
+        int rounds = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            clientChannel.sendMessage(TEST_MESSAGE + i);
+            assertEquals(TEST_MESSAGE + i, serverChannel.receiveMessage());
+            serverChannel.sendMessage("reply" + i);
+            assertEquals("reply" + i, clientChannel.receiveMessage());
+        }
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000),
+                "Replies waited for the flush delay");
+        assertEquals(0, clientChannel.getMetrics().getCoalescedMessages());
+        assertEquals(0, serverChannel.getMetrics().getCoalescedMessages());
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Burst of sends is coalesced into fewer flushes, idle send is flushed at once")
+    void testAdaptiveFlushCoalescing() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        clientChannel.setMaxFlushDelayMicros(500);
+        serverThread.join();
+
+        // Idle channel - written straight away
+        clientChannel.sendMessage("idle");
+        assertEquals(1, clientChannel.getMetrics().getFlushes());
+        assertEquals("idle", serverChannel.receiveMessage());
+        Thread.sleep(10);
+
+        int burst = 100;
+        for (int i = 0; i < burst; i++) {
+            clientChannel.sendMessage(TEST_MESSAGE + i);
+        }
+        for (int i = 0; i < burst; i++) {
+            assertEquals(TEST_MESSAGE + i, serverChannel.receiveMessage());
+        }
+
+        ChannelMetrics metrics = clientChannel.getMetrics();
+        assertEquals(burst + 1, metrics.getMessagesSent());
+        assertTrue(metrics.getFlushes() < burst, "Burst was not coalesced: " + metrics);
+        assertTrue(metrics.getCoalescedMessages() > 0, "Nothing coalesced: " + metrics);
+        assertEquals(burst + 1, serverChannel.getMetrics().getMessagesReceived());
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Shutdown sends end of stream after the data, data starting with ESC is not taken for control")
+    void testEndOfStreamFrame() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        serverThread.join();
+
+        clientChannel.sendMessage("\u001BE"); // same bytes as the end-of-stream frame
+        clientChannel.sendMessage(TEST_MESSAGE);
+        clientChannel.shutdown();
+
+        assertEquals("\u001BE", serverChannel.receiveMessage());
+        assertEquals(TEST_MESSAGE, serverChannel.receiveMessage());
+        assertNull(serverChannel.receiveMessage(), "End of stream should return null");
+        assertNull(serverChannel.receiveMessage(), "End of stream is sticky");
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Dropped connection resumes without losing or repeating messages in either direction")
+    void testSessionResumesAfterDrop() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        serverThread.join();
+        clientChannel.setSession(3000, 1024);
+        serverChannel.setSession(3000, 1024);
+
+        for (int i = 0; i < 5; i++) {
+            clientChannel.sendMessage(TEST_MESSAGE + i);
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(TEST_MESSAGE + i, serverChannel.receiveMessage());
+        }
+
+        clientChannel.dropConnection();
+        for (int i = 5; i < 10; i++) {
+            clientChannel.sendMessage(TEST_MESSAGE + i); // retained, re-sent once the session is back
+        }
+        for (int i = 3; i < 10; i++) {
+            assertEquals(TEST_MESSAGE + i, serverChannel.receiveMessage());
+        }
+
+        serverChannel.sendMessage("Server Message");
+        assertEquals("Server Message", clientChannel.receiveMessage());
+        assertEquals(1, clientChannel.getMetrics().getResumes());
+        assertEquals(1, serverChannel.getMetrics().getResumes());
+        assertEquals(10, serverChannel.getMetrics().getMessagesReceived());
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Timed out async send is not numbered, a resume afterwards neither loses nor repeats messages")
+    void testWithdrawnSendKeepsSessionInStep() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        serverThread.join();
+        clientChannel.setSession(3000, 1024);
+        serverChannel.setSession(3000, 1024);
+
+        // Nobody reads yet, the socket buffers fill up and later sends stay queued
+        String payload = "x".repeat(1024);
+        List<String> expected = new ArrayList<>();
+        CompletableFuture<Void> queued = null;
+        for (int i = 0; i < 200; i++) {
+            expected.add(payload + i);
+            queued = clientChannel.sendAsync(payload + i);
+        }
+        assertFalse(queued.isDone(), "Socket buffers never filled up");
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> clientChannel.sendAsync("withdrawn", 10, TimeUnit.MILLISECONDS).get());
+        assertTrue(exception.getCause() instanceof TimeoutException);
+        for (int i = 200; i < 210; i++) {
+            expected.add(payload + i);
+            clientChannel.sendAsync(payload + i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.get(i), serverChannel.receiveMessage());
+        }
+        clientChannel.dropConnection();
+        expected.add(TEST_MESSAGE);
+        clientChannel.sendAsync(TEST_MESSAGE); // write fails on the dropped socket and starts the resume
+        for (int i = 100; i < expected.size(); i++) {
+            assertEquals(expected.get(i), serverChannel.receiveMessage());
+        }
+        clientChannel.shutdown();
+        assertNull(serverChannel.receiveMessage(), "Message after the last one sent");
+        assertEquals(1, serverChannel.getMetrics().getResumes());
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Heartbeats keep an idle connection alive")
+    void testHeartbeatsKeepIdleConnectionAlive() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        serverThread.join();
+        clientChannel.setLiveness(10, 50);
+        serverChannel.setLiveness(10, 50);
+
+        Thread.sleep(300); // several idle timeouts without any message
+
+        // Heartbeats are control flushes, the message flush count stays clean
+        assertEquals(0, clientChannel.getMetrics().getFlushes());
+        assertTrue(clientChannel.getMetrics().getControlFlushes() > 0, "No heartbeat was sent");
+
+        clientChannel.sendMessage(TEST_MESSAGE);
+        assertEquals(TEST_MESSAGE, serverChannel.receiveMessage());
+        assertEquals(0, serverChannel.getMetrics().getResumes(), "Idle but live connection was dropped");
+        assertEquals(0, clientChannel.getMetrics().getResumes(), "Idle but live connection was dropped");
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Silent peer is detected by the idle check and ends the stream")
+    void testSilentPeerDetected() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        // Connected but never sends anything, not even heartbeats
+        try (SocketChannel silentPeer = SocketChannel.open(new InetSocketAddress(TEST_HOST, testPort))) {
+            serverThread.join();
+            serverChannel.setLiveness(10, 50);
+
+            // Idle timeout ends the stream, there is no session to wait for the peer to come back
+            assertNull(serverChannel.receiveMessage());
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Control message overtakes data already buffered by the receiver")
+    void testControlMessageOvertakesBufferedData() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        serverThread.join();
+
+        for (int i = 0; i < 5; i++) {
+            clientChannel.sendMessage(TEST_MESSAGE + i);
+        }
+        clientChannel.sendControl("Stop");
+        Thread.sleep(200); // everything arrives before the first receive
+
+        assertEquals("Stop", serverChannel.receiveMessage());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(TEST_MESSAGE + i, serverChannel.receiveMessage());
+        }
+        assertEquals(5, serverChannel.getMetrics().getMessagesReceived(), "Control message counted as data");
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Payloads with newline, carriage return and ESC bytes survive the line framing")
+    void testBinaryPayloadsSurviveFraming() throws Exception {
+        serverThread = new Thread(() -> {
+            try {
+                serverChannel = new NetworkChannel("TestServer", testPort);
+            } catch (Exception e) {
+                fail("Server failed: " + e.getMessage());
+            }
+        });
+        serverThread.start();
+        Thread.sleep(200);
+
+        clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+        serverThread.join();
+        StringBuilder allBytes = new StringBuilder();
+        for (char c = 0; c < 256; c++) {
+            allBytes.append(c);
+        }
+        List<String> messages = List.of("two\nlines\r", "\u001B" + "E", "\r", allBytes.toString(), TEST_MESSAGE,
+                "\u20AC and \u00E9\n");
+
+        for (String message : messages) {
+            clientChannel.sendMessage(message);
+        }
+        clientChannel.sendControl("control\nwith newline");
+
+        assertEquals("control\nwith newline", serverChannel.receiveMessage());
+        for (String message : messages) {
+            assertEquals(message, serverChannel.receiveMessage());
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Binary record goes out as one byte per char, not UTF-8")
+    void testBinaryRecordSentAsBytes() throws Exception {
+        try (ServerSocketChannel rawServer = ServerSocketChannel.open()) {
+            rawServer.bind(new InetSocketAddress(TEST_HOST, testPort));
+            clientChannel = new NetworkChannel("TestClient", TEST_HOST, testPort);
+            StringBuilder record = new StringBuilder();
+            for (char c = 0x80; c < 0x100; c++) {
+                record.append(c);
+            }
+
+            clientChannel.sendMessage(record.toString());
+
+            try (SocketChannel peer = rawServer.accept()) {
+                ByteBuffer received = ByteBuffer.allocate(1024);
+                while (received.position() == 0 || received.get(received.position() - 1) != '\n') {
+                    peer.read(received);
+                }
+                assertEquals(128 + 3, received.position(), "ESC b, one byte per char, newline");
+                assertEquals('b', received.get(1));
+            }
+        }
+    }
+
 }
@@ -2,15 +2,23 @@ package com.playercommunication.channel;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -199,4 +207,306 @@ public class SameProcessChannelTest {
         assertTrue(sendDone.await(3, TimeUnit.SECONDS));
         assertTrue(receiverDone.await(3, TimeUnit.SECONDS));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("receiveAsync completes when the linked peer sends")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testReceiveAsyncCompletedByPeer() throws Exception {
+        SameProcessChannel peer = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(channel, peer);
+
+        CompletableFuture<String> pending = channel.receiveAsync();
+        assertFalse(pending.isDone());
+
+        peer.sendMessage("Chit Chat");
+        assertEquals("Chit Chat", pending.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("receiveAsync with timeout fails and leaves later messages for the next receiver")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testReceiveAsyncTimeout() throws Exception {
+        SameProcessChannel peer = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(channel, peer);
+
+        CompletableFuture<String> timedOut = channel.receiveAsync(50, TimeUnit.MILLISECONDS);
+        ExecutionException exception = assertThrows(ExecutionException.class, timedOut::get);
+        assertTrue(exception.getCause() instanceof TimeoutException);
+
+        peer.sendMessage("Chit Chat");
+        assertEquals("Chit Chat", channel.receiveAsync().get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Cancelled receiveAsync does not consume a message")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testReceiveAsyncCancelled() throws Exception {
+        SameProcessChannel peer = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(channel, peer);
+
+        CompletableFuture<String> cancelled = channel.receiveAsync();
+        cancelled.cancel(false);
+
+        peer.sendMessage("Chit Chat");
+        assertEquals("Chit Chat", channel.receiveMessage());
+    }
+
+    @Test
+    @DisplayName("sendAsync on a full queue completes once the peer takes a message")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testSendAsyncCompletesWhenSpaceFreed() throws Exception {
+        BlockingQueue<String> smallQueue = new ArrayBlockingQueue<>(1);
+        SameProcessChannel sender = new SameProcessChannel(incomingQueue, smallQueue);
+        SameProcessChannel receiver = new SameProcessChannel(smallQueue, incomingQueue);
+        SameProcessChannel.connect(sender, receiver);
+
+        assertTrue(sender.sendAsync("1").isDone());
+        CompletableFuture<Void> second = sender.sendAsync("2");
+        assertFalse(second.isDone());
+
+        assertEquals("1", receiver.receiveMessage());
+        second.get(1, TimeUnit.SECONDS);
+        assertEquals("2", receiver.receiveMessage());
+    }
+
+    @Test
+    @DisplayName("Async operations on an unlinked channel fail at once instead of never completing")
+    void testAsyncRequiresLink() {
+        ExecutionException receive = assertThrows(ExecutionException.class, () -> channel.receiveAsync().get());
+        assertTrue(receive.getCause() instanceof IllegalStateException);
+        ExecutionException send = assertThrows(ExecutionException.class, () -> channel.sendAsync("Chit Chat").get());
+        assertTrue(send.getCause() instanceof IllegalStateException);
+        assertTrue(outgoingQueue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("connect rejects channels that do not share crossed queues")
+    void testConnectRejectsUnrelatedChannels() {
+        SameProcessChannel unrelated = new SameProcessChannel(new ArrayBlockingQueue<>(1), new ArrayBlockingQueue<>(1));
+        assertThrows(IllegalArgumentException.class, () -> SameProcessChannel.connect(channel, unrelated));
+    }
+
+    @Test
+    @DisplayName("receiveBatch drains every queued message in order")
+    void testReceiveBatch() {
+        incomingQueue.offer("1");
+        incomingQueue.offer("2");
+        incomingQueue.offer("3");
+
+        List<String> received = new ArrayList<>();
+        assertEquals(2, channel.receiveBatch(received, 2));
+        assertEquals(List.of("1", "2"), received);
+        assertEquals(1, channel.receiveBatch(received, 16));
+        assertEquals(List.of("1", "2", "3"), received);
+    }
+
+    @Test
+    @DisplayName("receiveBatch blocks until the first message arrives")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testReceiveBatchBlocksUntilMessage() throws InterruptedException {
+        Thread sender = new Thread(() -> incomingQueue.offer("Chit Chat"));
+        List<String> received = new ArrayList<>();
+        sender.start();
+
+        assertEquals(1, channel.receiveBatch(received, 16));
+        assertEquals(List.of("Chit Chat"), received);
+        sender.join();
+    }
+
+    @Test
+    @DisplayName("sendBatch enqueues messages in order and skips nulls")
+    void testSendBatch() {
+        channel.sendBatch(Arrays.asList("1", null, "2", "3"));
+
+        assertEquals(3, outgoingQueue.size());
+        assertEquals("1", outgoingQueue.poll());
+        assertEquals("2", outgoingQueue.poll());
+        assertEquals("3", outgoingQueue.poll());
+    }
+
+    @Test
+    @DisplayName("Burst beyond queue capacity spills off-heap and drains back in order")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testSpillAbsorbsBurstInOrder() {
+        SameProcessChannel sender = new SameProcessChannel(incomingQueue, outgoingQueue, 4096);
+        SameProcessChannel receiver = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(sender, receiver);
+
+        for (int i = 0; i < 100; i++) {
+            sender.sendMessage("message-" + i); // never waits, no receiver is running yet
+        }
+        assertEquals(16, outgoingQueue.size());
+        assertEquals(84, sender.getSpilledCount());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("message-" + i, receiver.receiveMessage());
+        }
+        assertEquals(0, sender.getSpilledCount());
+        assertTrue(outgoingQueue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Send with queue and spill full completes behind the spill once the peer drains it")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testSpillFullWaitsBehindSpill() throws Exception {
+        SameProcessChannel sender = new SameProcessChannel(incomingQueue, outgoingQueue, 64);
+        SameProcessChannel receiver = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(sender, receiver);
+
+        for (int i = 0; i < 16; i++) {
+            sender.sendMessage("q" + i);
+        }
+        sender.sendMessage("spill-1"); // 4 byte length + 7 bytes each
+        sender.sendMessage("spill-2");
+        CompletableFuture<Void> waiting = sender.sendAsync("last-message-waits-for-space-in-the-spill");
+        assertFalse(waiting.isDone());
+
+        List<String> received = new ArrayList<>();
+        for (int i = 0; i < 19; i++) {
+            received.add(receiver.receiveMessage());
+        }
+        waiting.get(1, TimeUnit.SECONDS);
+        assertEquals("spill-1", received.get(16));
+        assertEquals("spill-2", received.get(17));
+        assertEquals("last-message-waits-for-space-in-the-spill", received.get(18));
+    }
+
+    @Test
+    @DisplayName("Shutdown releases the peer's blocked reader after the messages sent before it")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testShutdownReleasesPeerReader() throws InterruptedException {
+        SameProcessChannel peer = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(channel, peer);
+        List<String> received = new ArrayList<>();
+        CountDownLatch finished = new CountDownLatch(1);
+
+        Thread reader = new Thread(() -> {
+            String message;
+            while ((message = peer.receiveMessage()) != null) {
+                received.add(message);
+            }
+            finished.countDown();
+        });
+        reader.start();
+        channel.sendMessage("1");
+        channel.sendMessage("2");
+        channel.shutdown();
+
+        assertTrue(finished.await(1, TimeUnit.SECONDS), "Reader still blocked after shutdown");
+        assertEquals(List.of("1", "2"), received);
+        assertNull(peer.receiveMessage(), "End of stream is sticky");
+        assertEquals(0, peer.receiveBatch(received, 16));
+    }
+
+    @Test
+    @DisplayName("Shutdown releases own blocked readers without leaving markers in the peer's send queue")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testShutdownReleasesOwnReadersWithoutMarkers() throws Exception {
+        SameProcessChannel peer = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(channel, peer);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(channel::receiveMessage);
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(channel::receiveMessage);
+        Thread.sleep(100); // both readers parked in take()
+
+        channel.shutdown();
+
+        assertNull(first.get(1, TimeUnit.SECONDS));
+        assertNull(second.get(1, TimeUnit.SECONDS));
+        assertNull(channel.receiveMessage());
+        assertNull(channel.receiveMessage());
+        assertTrue(incomingQueue.isEmpty(), "Marker left in the peer's outgoing queue");
+    }
+
+    @Test
+    @DisplayName("Shutdown completes own async receivers with null and rejects later sends")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testShutdownCompletesOwnReceivers() {
+        SameProcessChannel peer = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(channel, peer);
+        CompletableFuture<String> pending = channel.receiveAsync();
+
+        channel.shutdown();
+
+        assertNull(pending.join());
+        assertNull(channel.receiveMessage());
+        assertTrue(channel.sendAsync("late").isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("Control message skips a full data queue and is received first")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testControlMessageOvertakesFullQueue() throws IOException {
+        SameProcessChannel peer = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(channel, peer);
+        for (int i = 0; i < 16; i++) {
+            channel.sendMessage("data" + i);
+        }
+
+        channel.sendControl("Stop"); // queue is full, must not wait for the reader
+
+        assertEquals("Stop", peer.receiveMessage());
+        for (int i = 0; i < 16; i++) {
+            assertEquals("data" + i, peer.receiveMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Control message releases a reader blocked on an empty queue")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testControlMessageReleasesBlockedReader() throws Exception {
+        SameProcessChannel peer = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(channel, peer);
+        CompletableFuture<String> received = CompletableFuture.supplyAsync(peer::receiveMessage);
+        Thread.sleep(100); // reader parked in take()
+
+        channel.sendControl("Ping");
+
+        assertEquals("Ping", received.get(1, TimeUnit.SECONDS));
+        channel.sendMessage("after");
+        assertEquals("after", peer.receiveMessage(), "Wake marker delivered as data");
+    }
+
+    @Test
+    @DisplayName("Control messages take no data queue slots, at most one marker per parked reader")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testControlBurstLeavesDataQueueFree() throws Exception {
+        SameProcessChannel peer = new SameProcessChannel(outgoingQueue, incomingQueue);
+        SameProcessChannel.connect(channel, peer);
+        for (int i = 0; i < 20; i++) {
+            channel.sendControl("control" + i); // nobody reading
+        }
+        assertTrue(outgoingQueue.isEmpty(), "Marker written without a parked reader");
+        for (int i = 0; i < 16; i++) {
+            assertTrue(channel.sendAsync("data" + i).isDone(), "Data queue slot taken by a marker");
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals("control" + i, peer.receiveMessage());
+        }
+        for (int i = 0; i < 16; i++) {
+            assertEquals("data" + i, peer.receiveMessage());
+        }
+
+        CompletableFuture<String> received = CompletableFuture.supplyAsync(peer::receiveMessage);
+        Thread.sleep(100); // reader parked in take()
+        for (int i = 0; i < 20; i++) {
+            channel.sendControl("burst" + i);
+        }
+        assertTrue(outgoingQueue.size() <= 1, "More markers than parked readers: " + outgoingQueue.size());
+        assertEquals("burst0", received.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Unlinked shutdown with a full queue still ends the peer's stream once it drains")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testUnlinkedShutdownFullQueue() throws Exception {
+        SameProcessChannel reader = new SameProcessChannel(outgoingQueue, incomingQueue);
+        for (int i = 0; i < 16; i++) {
+            channel.sendMessage("data" + i);
+        }
+        channel.shutdown(); // queue full, must not block
+        for (int i = 0; i < 16; i++) {
+            assertEquals("data" + i, reader.receiveMessage());
+        }
+        assertNull(reader.receiveMessage(), "End of stream lost while the queue was full");
+    }
+}
@@ -0,0 +1,54 @@
+package com.playercommunication.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Unit tests for ConfigSnapshot and ConfigLoader using JUnit 5.
+ * Tests cover typed parsing, defaults for missing keys, failing fast on malformed numbers
+ * and the loader handing out one shared snapshot.
+ */
+public class ConfigSnapshotTest {
+
+    @Test
+    @DisplayName("Values are parsed once into typed fields, missing keys take their defaults")
+    void testParsingAndDefaults() {
+        Properties properties = new Properties();
+        properties.setProperty("queue.capacity", " 32 ");
+        properties.setProperty("network.host", "example");
+        properties.setProperty("network.session.resume.timeout.ms", "5000");
+
+        ConfigSnapshot snapshot = ConfigSnapshot.from(properties);
+
+        assertEquals(32, snapshot.queueCapacity());
+        assertEquals("example", snapshot.networkHost());
+        assertEquals(5000L, snapshot.sessionResumeTimeoutMillis());
+        assertEquals(9090, snapshot.networkPort());
+        assertEquals(10, snapshot.maxMessageCount());
+        assertEquals(0, snapshot.queueSpillCapacityBytes());
+    }
+
+    @Test
+    @DisplayName("Malformed number fails when the snapshot is built")
+    void testMalformedNumberFailsFast() {
+        Properties properties = new Properties();
+        properties.setProperty("multicast.port", "91x1");
+
+        assertThrows(NumberFormatException.class, () -> ConfigSnapshot.from(properties));
+    }
+
+    @Test
+    @DisplayName("Loader reads application.properties into one shared snapshot")
+    void testLoaderSnapshot() {
+        assertSame(ConfigLoader.snapshot(), ConfigLoader.snapshot());
+        assertEquals(ConfigLoader.snapshot().queueCapacity(), ConfigLoader.getQueueCapacity());
+        assertEquals(16, ConfigLoader.getQueueCapacity());
+    }
+}
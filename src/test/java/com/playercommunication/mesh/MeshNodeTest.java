@@ -0,0 +1,181 @@
+package com.playercommunication.mesh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.playercommunication.MeshCommunication;
+import com.playercommunication.channel.MessageChannel;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Tests for MeshNode: id placement, routing between nodes over shared links, send failures, the bounded
+ * inbox and a full three-node run of MeshCommunication inside one JVM.
+ */
+public class MeshNodeTest {
+
+    private static List<InetSocketAddress> nodes(int basePort, int count) {
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) list.append(',');
+            list.append("localhost:").append(basePort + 10 * i);
+        }
+        return MeshNode.parseNodes(list.toString());
+    }
+
+    @Test
+    @DisplayName("Every node places a player id on the same node and refuses to host foreign ones")
+    void testPlacement() {
+        List<InetSocketAddress> addresses = nodes(19700, 3);
+        MeshNode first = new MeshNode(addresses, 0);
+        MeshNode second = new MeshNode(addresses, 1);
+        int[] perNode = new int[3];
+        for (int c = 0; c < 300; c++) {
+            String playerId = "Initiator-" + c;
+            assertEquals(first.nodeOf(playerId), second.nodeOf(playerId));
+            perNode[first.nodeOf(playerId)]++;
+        }
+        for (int count : perNode) {
+            assertTrue(count > 50, "Players not spread over the nodes: " + count);
+        }
+
+        String foreign = "Initiator-0";
+        MeshNode other = first.isLocal(foreign) ? second : first;
+        assertThrows(IllegalArgumentException.class, () -> other.channelFor(foreign, "Responder-0"));
+    }
+
+    @Test
+    @Timeout(value = 20, unit = TimeUnit.SECONDS)
+    @DisplayName("Messages and end of stream are routed by player id across a node link")
+    void testRoutingAcrossNodes() throws Exception {
+        List<InetSocketAddress> addresses = nodes(19720, 2);
+        MeshNode first = new MeshNode(addresses, 0);
+        MeshNode second = new MeshNode(addresses, 1);
+        String firstPlayer = playerOn(first, "A-");
+        String secondPlayer = playerOn(second, "B-");
+        MessageChannel sender = first.channelFor(firstPlayer, secondPlayer);
+        MessageChannel receiver = second.channelFor(secondPlayer, firstPlayer);
+
+        CompletableFuture<Void> accepting = CompletableFuture.runAsync(() -> {
+            try {
+                second.start();
+            } catch (Exception startExp) {
+                throw new RuntimeException(startExp);
+            }
+        });
+        first.start();
+        accepting.get(10, TimeUnit.SECONDS);
+
+        sender.sendMessage("Chit_Chat");
+        assertEquals("Chit_Chat", receiver.receiveMessage());
+        receiver.sendMessage("Chit_Chat1");
+        assertEquals("Chit_Chat1", sender.receiveAsync().get(5, TimeUnit.SECONDS));
+        sender.shutdown();
+        assertNull(receiver.receiveMessage());
+        assertEquals(2, first.getRemoteSends());
+
+        CompletableFuture<Void> leaving = CompletableFuture.runAsync(second::close);
+        first.close();
+        leaving.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    @DisplayName("A send that cannot reach its target fails instead of succeeding silently")
+    void testUnreachableSendFails() {
+        MeshNode first = new MeshNode(nodes(19760, 2), 0); // never started, no link to node 1
+        String localPlayer = playerOn(first, "A-");
+        String remotePlayer = "B-0";
+        for (int i = 0; first.isLocal(remotePlayer); i++) {
+            remotePlayer = "B-" + i;
+        }
+        MessageChannel channel = first.channelFor(localPlayer, remotePlayer);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> channel.sendAsync("Chit_Chat").get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, failure.getCause());
+        assertThrows(IOException.class, () -> channel.sendMessage("Chit_Chat"));
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    @DisplayName("start() fails once a missing node did not come up within the connect timeout")
+    void testStartGivesUpAfterConnectTimeout() {
+        List<InetSocketAddress> addresses = nodes(19780, 2);
+        MeshNode connecting = new MeshNode(addresses, 0, 16, 300); // node 1 never listens
+        MeshNode accepting = new MeshNode(nodes(19790, 2), 1, 16, 300); // node 0 never connects
+
+        long start = System.nanoTime();
+        assertThrows(IOException.class, connecting::start);
+        assertThrows(IOException.class, accepting::start);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3), "Waited past the connect timeout");
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    @DisplayName("A full inbox holds back local senders until its player receives")
+    void testInboxBackpressure() throws Exception {
+        MeshNode node = new MeshNode(nodes(19770, 1), 0, 2);
+        MessageChannel sender = node.channelFor("A", "B");
+        MessageChannel receiver = node.channelFor("B", "A");
+
+        assertTrue(sender.sendAsync("1").isDone());
+        assertTrue(sender.sendAsync("2").isDone());
+        CompletableFuture<Void> third = sender.sendAsync("3");
+        assertFalse(third.isDone(), "Inbox took more than its capacity");
+
+        assertEquals("1", receiver.receiveMessage());
+        third.get(1, TimeUnit.SECONDS);
+        assertEquals("2", receiver.receiveMessage());
+        assertEquals("3", receiver.receiveAsync().get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    @DisplayName("Three nodes complete every conversation of the mesh")
+    void testThreeNodeMesh() throws Exception {
+        List<InetSocketAddress> addresses = nodes(19740, 3);
+        List<CompletableFuture<Boolean>> runs = new ArrayList<>();
+        List<MeshNode> meshNodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            MeshNode node = new MeshNode(addresses, i);
+            meshNodes.add(node);
+            runs.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return MeshCommunication.runNode(node, 12, "Hi");
+                } catch (Exception runExp) {
+                    throw new RuntimeException(runExp);
+                }
+            }));
+        }
+
+        long remoteSends = 0;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(runs.get(i).get(50, TimeUnit.SECONDS), "Node " + i + " did not complete");
+            remoteSends += meshNodes.get(i).getRemoteSends();
+        }
+        assertTrue(remoteSends > 0, "No conversation crossed a node");
+    }
+
+    private static String playerOn(MeshNode node, String prefix) {
+        for (int i = 0; ; i++) {
+            if (node.isLocal(prefix + i)) return prefix + i;
+        }
+    }
+
+}
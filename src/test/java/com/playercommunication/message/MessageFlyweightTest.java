@@ -0,0 +1,83 @@
+package com.playercommunication.message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Unit tests for MessageFlyweight and MessageCodec using JUnit 5.
+ * Tests cover header fields at fixed offsets, in-place payload assembly and the wire round trip.
+ */
+public class MessageFlyweightTest {
+
+    @Test
+    @DisplayName("Header fields are written and read in place at their offsets")
+    void testHeaderFields() {
+        ByteBuffer buffer = ByteBuffer.allocate(128);
+        MessageFlyweight message = new MessageFlyweight().wrap(buffer, 16)
+                .writeHeader(42, 7L, 1_700_000_000_000L, MessageFlyweight.FLAG_LAST);
+
+        assertEquals(7L, buffer.getLong(16 + MessageFlyweight.SEQUENCE_OFFSET));
+        assertEquals(42, message.getSenderId());
+        assertEquals(7L, message.getSequence());
+        assertEquals(1_700_000_000_000L, message.getTimestamp());
+        assertTrue(message.hasFlag(MessageFlyweight.FLAG_LAST));
+        assertEquals(MessageFlyweight.SCHEMA_VERSION, message.getSchemaVersion());
+        assertEquals(0, message.getPayloadLength());
+        assertEquals(MessageFlyweight.HEADER_LENGTH, message.getEncodedLength());
+    }
+
+    @Test
+    @DisplayName("Payload is assembled from another message and the count digits without strings")
+    void testPayloadAssembly() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        byte[] text = "Chit_Chat".getBytes(StandardCharsets.UTF_8);
+        MessageFlyweight received = new MessageFlyweight().wrap(buffer, 0).writeHeader(1, 1, 0, (short) 0)
+                .appendPayload(text, 0, text.length);
+        MessageFlyweight reply = new MessageFlyweight().wrap(buffer, 100).writeHeader(2, 1, 0, (short) 0)
+                .appendPayload(received)
+                .appendPayloadDigits(0)
+                .appendPayloadDigits(1205);
+
+        assertEquals("Chit_Chat01205", MessageCodec.payloadText(reply));
+        assertEquals("Chit_Chat", MessageCodec.payloadText(received));
+    }
+
+    @Test
+    @DisplayName("Codec carries every byte value across its one-char-per-byte wire form")
+    void testCodecRoundTrip() {
+        MessageCodec sender = new MessageCodec();
+        MessageCodec receiver = new MessageCodec();
+        byte[] payload = new byte[256];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        sender.write(-5, Long.MAX_VALUE, MessageFlyweight.FLAG_FIRST, payload.length).appendPayload(payload, 0, 256);
+
+        MessageFlyweight decoded = receiver.read(sender.toWire());
+
+        assertEquals(-5, decoded.getSenderId());
+        assertEquals(Long.MAX_VALUE, decoded.getSequence());
+        assertEquals(256, decoded.getPayloadLength());
+        for (int i = 0; i < payload.length; i++) {
+            assertEquals(payload[i], decoded.getPayloadByte(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Text that is not a message of the schema is rejected")
+    void testRejectsForeignText() {
+        MessageCodec codec = new MessageCodec();
+
+        assertThrows(IllegalArgumentException.class, () -> codec.read("Chit_Chat1"));
+        assertThrows(IllegalArgumentException.class, () -> codec.read("x".repeat(40)));
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.playercommunication.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * @author Tharmaraj Marimuthu
+ * Unit tests for SpscRing and ShardedRouter using JUnit 5.
+ * Tests cover ring ordering and capacity, many conversations spread over shards,
+ * direct handoff on a single shard, and progress when shard-to-shard rings are full.
+ */
+public class ShardedRouterTest {
+
+    private static final int MAX_MESSAGES = 10;
+
+    @Test
+    @DisplayName("Ring keeps order and refuses offers when full")
+    void testRingOrderAndCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscRing<String>(6));
+
+        SpscRing<String> ring = new SpscRing<>(2);
+        assertTrue(ring.offer("a", "1"));
+        assertTrue(ring.offer("b", "2"));
+        assertFalse(ring.offer("c", "3"));
+
+        List<String> drained = new ArrayList<>();
+        assertEquals(2, ring.drain((target, message) -> drained.add(target + message), 10));
+        assertEquals(List.of("a1", "b2"), drained);
+        assertTrue(ring.isEmpty());
+        assertTrue(ring.offer("c", "3"));
+    }
+
+    @Test
+    @DisplayName("Many conversations complete across shards with the expected last message")
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testConversationsAcrossShards() throws InterruptedException {
+        int pairs = 200;
+        List<Counter> initiators = new ArrayList<>();
+        try (ShardedRouter router = new ShardedRouter(4, 64)) {
+            for (int i = 0; i < pairs; i++) {
+                Counter initiator = new Counter(true);
+                initiators.add(initiator);
+                router.addConversation("I" + i, initiator, "R" + i, new Counter(false), "Hi");
+            }
+            router.start();
+
+            assertTrue(router.awaitCompletion(5, TimeUnit.SECONDS));
+            assertTrue(router.getLocalHandoffs() > 0, "No pair shared a shard");
+            assertTrue(router.getCrossShardMessages() > 0, "No pair spanned shards");
+        }
+        for (Counter initiator : initiators) {
+            assertEquals(MAX_MESSAGES, initiator.receivedCount);
+            assertEquals("Hi122334455667788991010", initiator.lastMessage);
+        }
+    }
+
+    @Test
+    @DisplayName("Single shard exchanges every message by direct handoff")
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testSingleShardUsesDirectHandoff() throws InterruptedException {
+        try (ShardedRouter router = new ShardedRouter(1, 16)) {
+            router.addConversation("P1", new Counter(true), "P2", new Counter(false), "Hi");
+            router.start();
+
+            assertTrue(router.awaitCompletion(2, TimeUnit.SECONDS));
+            assertEquals(0, router.getCrossShardMessages());
+            assertEquals(2 * MAX_MESSAGES - 1, router.getLocalHandoffs()); // the first message comes from outside
+        }
+    }
+
+    @Test
+    @DisplayName("Conversations still complete when shard-to-shard rings overflow")
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testProgressWithFullRings() throws InterruptedException {
+        try (ShardedRouter router = new ShardedRouter(2, 2)) {
+            for (int i = 0; i < 500; i++) {
+                router.addConversation("I" + i, new Counter(true), "R" + i, new Counter(false), "Hi");
+            }
+            router.start();
+
+            assertTrue(router.awaitCompletion(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("Duplicate player ids and late registrations are rejected")
+    void testRegistrationRules() {
+        try (ShardedRouter router = new ShardedRouter(2, 16)) {
+            router.addConversation("P1", new Counter(true), "P2", new Counter(false), "Hi");
+            assertThrows(IllegalArgumentException.class,
+                    () -> router.addConversation("P1", new Counter(true), "P3", new Counter(false), "Hi"));
+
+            router.start();
+            assertThrows(IllegalStateException.class,
+                    () -> router.addConversation("P4", new Counter(true), "P5", new Counter(false), "Hi"));
+        }
+    }
+
+    // Player's rule: reply = message + sentCount, the initiator stops after MAX_MESSAGES replies
+    private static final class Counter implements ShardedRouter.Handler {
+
+        private final boolean isInitiator;
+        private int sentCount;
+        private int receivedCount;
+        private String lastMessage;
+
+        private Counter(boolean isInitiator) {
+            this.isInitiator = isInitiator;
+            this.sentCount = isInitiator ? 1 : 0;
+        }
+
+        @Override
+        public String onMessage(String message) {
+            receivedCount++;
+            lastMessage = message;
+            if (isInitiator && receivedCount >= MAX_MESSAGES) return null;
+            sentCount++;
+            return message + sentCount;
+        }
+    }
+}